@@ -0,0 +1,188 @@
+package com.robinpowered.RNMDMManager;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor for the heavy diagnostic methods, so their binder calls never
+ * hold up the React native-modules thread.
+ *
+ * Every call settles its promise exactly once: with the task result, with
+ * {@code E_TIMEOUT} when its timeout elapses, with {@code E_CANCELLED} when JS
+ * cancels it by call ID, or with {@code E_BUSY} when the queue is full. Timeouts
+ * and call IDs come from the options of each call, so one caller never shortens
+ * or cancels another caller's work.
+ */
+final class BackgroundTaskRunner {
+    interface Task {
+        Object run() throws Exception;
+    }
+
+    static final long DEFAULT_TIMEOUT_MS = 10000;
+
+    private static final int MAX_THREADS = 2;
+    private static final int MAX_QUEUED = 8;
+
+    private static final BackgroundTaskRunner INSTANCE = new BackgroundTaskRunner();
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timeouts;
+    private final Set<Call> inFlight = Collections.newSetFromMap(new ConcurrentHashMap<Call, Boolean>());
+    private final ConcurrentHashMap<String, Call> byCallId = new ConcurrentHashMap<String, Call>();
+
+    private BackgroundTaskRunner() {
+        executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED), newThreadFactory("RNMDM-Background"));
+        executor.allowCoreThreadTimeOut(true);
+        timeouts = Executors.newSingleThreadScheduledExecutor(newThreadFactory("RNMDM-Timeout"));
+    }
+
+    static BackgroundTaskRunner getInstance() {
+        return INSTANCE;
+    }
+
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    void submit(String name, Promise promise, Task task) {
+        submit(name, null, promise, task);
+    }
+
+    // Reads the optional timeoutMs and callId of the call from its JS options
+    void submit(String name, ReadableMap options, Promise promise, Task task) {
+        long timeout = DEFAULT_TIMEOUT_MS;
+        String callId = null;
+        if (options != null) {
+            if (options.hasKey("timeoutMs") && options.getType("timeoutMs") == ReadableType.Number) {
+                timeout = (long) options.getDouble("timeoutMs");
+            }
+            if (options.hasKey("callId") && options.getType("callId") == ReadableType.String) {
+                callId = options.getString("callId");
+            }
+        }
+        submit(name, callId, timeout > 0 ? timeout : DEFAULT_TIMEOUT_MS, promise, task);
+    }
+
+    private void submit(final String name, String callId, final long timeout, Promise promise, final Task task) {
+        final Call call = new Call(name, callId, promise);
+        if (callId != null && byCallId.putIfAbsent(callId, call) != null) {
+            promise.reject("E_CALL_ID_IN_USE", "A background MDM request with call ID " + callId + " is still in flight");
+            return;
+        }
+
+        inFlight.add(call);
+        call.timeoutFuture = timeouts.schedule(new Runnable() {
+            @Override
+            public void run() {
+                call.cancel("E_TIMEOUT", name + " timed out after " + timeout + " ms");
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+
+        try {
+            call.taskFuture = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        call.resolve(task.run());
+                    } catch (Exception e) {
+                        call.reject("ERROR", e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            call.reject("E_BUSY", "Too many background MDM requests in flight, " + name + " was not started");
+        }
+    }
+
+    // False when no call with that ID is in flight, e.g. because it already settled
+    boolean cancel(String callId) {
+        Call call = callId != null ? byCallId.get(callId) : null;
+        return call != null && call.cancel("E_CANCELLED", call.name + " was cancelled");
+    }
+
+    static ThreadFactory newThreadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private final class Call {
+        private final String name;
+        private final String callId;
+        private final long startNanos = MDMMetrics.getInstance().startCall();
+        private final Promise promise;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private volatile Future<?> taskFuture;
+        private volatile Future<?> timeoutFuture;
+
+        Call(String name, String callId, Promise promise) {
+            this.name = name;
+            this.callId = callId;
+            this.promise = promise;
+        }
+
+        void resolve(Object result) {
+            if (finish()) {
+                promise.resolve(result);
+            }
+        }
+
+        void reject(String code, String message) {
+            if (finish()) {
+                promise.reject(code, message);
+            }
+        }
+
+        boolean cancel(String code, String message) {
+            if (!finish()) {
+                return false;
+            }
+            Future<?> future = taskFuture;
+            if (future != null) {
+                future.cancel(true);
+            }
+            promise.reject(code, message);
+            return true;
+        }
+
+        private boolean finish() {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            inFlight.remove(this);
+            if (callId != null) {
+                byCallId.remove(callId, this);
+            }
+            // Timed until the promise settles, so queueing and timeouts show up in the histogram
+            MDMMetrics.getInstance().endCall(name, startNanos);
+            Future<?> future = timeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Bundle;
+
+import java.util.Arrays;
+
+/**
+ * Stable 64-bit FNV-1a hash of a restrictions bundle, rendered as 16 hex digits.
+ *
+ * Keys are visited in sorted order and every value is prefixed with a type tag, so
+ * the hash depends only on content: it is the same for equal bundles regardless of
+ * insertion order, process or platform version, and a snapshot restored from disk
+ * hashes the same as the live restrictions it was saved from.
+ */
+final class ContentHash {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_BOOLEAN = 2;
+    private static final int TYPE_INT = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_DOUBLE = 5;
+    private static final int TYPE_BUNDLE = 6;
+    private static final int TYPE_ARRAY = 7;
+    private static final int TYPE_OTHER = 8;
+    private static final int TYPE_INT_ARRAY = 9;
+
+    private long hash = OFFSET_BASIS;
+
+    private ContentHash() {
+    }
+
+    static String of(Bundle bundle) {
+        ContentHash content = new ContentHash();
+        content.addBundle(bundle);
+        String hex = Long.toHexString(content.hash);
+        StringBuilder padded = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++) {
+            padded.append('0');
+        }
+        return padded.append(hex).toString();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void addBundle(Bundle bundle) {
+        String[] keys = bundle.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        addInt(keys.length);
+        for (String key : keys) {
+            addString(key);
+            addValue(bundle.get(key));
+        }
+    }
+
+    private void addValue(Object value) {
+        if (value == null) {
+            addByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            addByte(TYPE_STRING);
+            addString((String) value);
+        } else if (value instanceof Boolean) {
+            addByte(TYPE_BOOLEAN);
+            addByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof Integer) {
+            addByte(TYPE_INT);
+            addInt((Integer) value);
+        } else if (value instanceof Long) {
+            addByte(TYPE_LONG);
+            addLong((Long) value);
+        } else if (value instanceof Double) {
+            addByte(TYPE_DOUBLE);
+            addLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Bundle) {
+            addByte(TYPE_BUNDLE);
+            addBundle((Bundle) value);
+        } else if (value instanceof Object[]) {
+            Object[] items = (Object[]) value;
+            addByte(TYPE_ARRAY);
+            addInt(items.length);
+            for (Object item : items) {
+                addValue(item);
+            }
+        } else if (value instanceof int[]) {
+            int[] items = (int[]) value;
+            addByte(TYPE_INT_ARRAY);
+            addInt(items.length);
+            for (int item : items) {
+                addInt(item);
+            }
+        } else {
+            // Not produced by RestrictionsManager; hashed through its text form
+            addByte(TYPE_OTHER);
+            addString(value.toString());
+        }
+    }
+
+    private void addString(String value) {
+        addInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            addByte(c >>> 8);
+            addByte(c);
+        }
+    }
+
+    private void addInt(int value) {
+        addByte(value >>> 24);
+        addByte(value >>> 16);
+        addByte(value >>> 8);
+        addByte(value);
+    }
+
+    private void addLong(long value) {
+        addInt((int) (value >>> 32));
+        addInt((int) value);
+    }
+
+    private void addByte(int value) {
+        hash ^= value & 0xff;
+        hash *= PRIME;
+    }
+}
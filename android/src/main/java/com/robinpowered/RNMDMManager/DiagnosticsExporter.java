@@ -0,0 +1,422 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.os.Bundle;
+import android.util.AtomicFile;
+import android.util.JsonWriter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes a diagnostics report as JSON to a file in the app cache, so large
+ * configurations never have to be held as one map or sent across the bridge.
+ *
+ * The report is streamed through a {@link JsonWriter} over a buffered channel
+ * writer. Every value is budgeted in encoded bytes before it is written: strings
+ * are cut at {@code maxValueLength} characters and at the bytes still left under
+ * {@code maxBytes}, counting UTF-8 and JSON escapes, and entries and array items
+ * that no longer fit are left out. The report stays valid JSON and records what was
+ * left out. Only the path and a summary are returned to JS.
+ *
+ * Every export gets a file of its own, so concurrent exports never write to the
+ * same file and a path handed to JS is not overwritten while it is being read.
+ * Only the most recent exports are kept.
+ */
+final class DiagnosticsExporter {
+    static final String FILE_PREFIX = "rnmdm-diagnostics-";
+    static final String FILE_SUFFIX = ".json";
+
+    static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+    static final int DEFAULT_MAX_VALUE_LENGTH = 1024;
+
+    private static final int MIN_MAX_BYTES = 4096;
+    private static final int MIN_MAX_VALUE_LENGTH = 16;
+
+    // Kept free for closing the open sections and the truncation summary
+    private static final int RESERVED_BYTES = 1024;
+    private static final int CHANNEL_BUFFER_BYTES = 8192;
+
+    // Room for the "...[n more chars]" marker of a truncated string
+    private static final int MARKER_BYTES = 32;
+    // Any scalar (a double takes up to 24 bytes) or a quoted marker fits in this
+    private static final int MIN_VALUE_BYTES = MARKER_BYTES + 2;
+
+    // Earlier exports kept next to the new one, so a file JS is still reading is not deleted under it
+    private static final int KEPT_EXPORTS = 3;
+    private static final AtomicLong exportSequence = new AtomicLong();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int maxBytes;
+    private final int maxValueLength;
+
+    private CountingWriter counter;
+    private int writtenKeys;
+    private int truncatedValues;
+    private boolean capReached;
+
+    DiagnosticsExporter(int maxBytes, int maxValueLength) {
+        this.maxBytes = Math.max(maxBytes, MIN_MAX_BYTES);
+        // A single value may not take more than a quarter of the budget
+        this.maxValueLength = Math.min(Math.max(maxValueLength, MIN_MAX_VALUE_LENGTH), this.maxBytes / 4);
+    }
+
+    WritableMap export(Context context, RestrictionsSnapshot snapshot, ManagementFacts facts) throws IOException {
+        long start = MDMMetrics.getInstance().startCall();
+        File directory = context.getApplicationContext().getCacheDir();
+        File target = new File(directory, FILE_PREFIX + System.currentTimeMillis() + "-" + exportSequence.incrementAndGet() + FILE_SUFFIX);
+        AtomicFile file = new AtomicFile(target);
+        FileOutputStream stream = file.startWrite();
+        try {
+            counter = new CountingWriter(Channels.newWriter(stream.getChannel(), UTF_8.newEncoder(), CHANNEL_BUFFER_BYTES));
+            JsonWriter json = new JsonWriter(counter);
+            writeReport(json, context, snapshot, facts);
+            // The stream is synced and closed by the AtomicFile
+            json.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            file.failWrite(stream);
+            throw e;
+        } catch (RuntimeException e) {
+            file.failWrite(stream);
+            throw e;
+        }
+        pruneExports(directory, target);
+
+        MDMMetrics.getInstance().endPath("exportDiagnostics", start, writtenKeys);
+        MDMLog.d("diagnostics exported", "bytes", counter.getBytes(), "truncated", capReached);
+
+        WritableMap summary = Arguments.createMap();
+        summary.putString("path", target.getAbsolutePath());
+        summary.putDouble("bytes", counter.getBytes());
+        summary.putInt("totalKeys", snapshot.size());
+        summary.putInt("writtenKeys", writtenKeys);
+        summary.putInt("truncatedValues", truncatedValues);
+        summary.putBoolean("truncated", capReached);
+        summary.putInt("maxBytes", maxBytes);
+        summary.putInt("maxValueLength", maxValueLength);
+        return summary;
+    }
+
+    private void writeReport(JsonWriter json, Context context, RestrictionsSnapshot snapshot, ManagementFacts facts) throws IOException {
+        json.beginObject();
+        json.name("generatedAt").value(System.currentTimeMillis());
+
+        PackageInfo packageInfo = null;
+        try {
+            packageInfo = facts.getPackageInfo();
+        } catch (Exception e) {
+            MDMLog.w("package info unavailable for diagnostics", e);
+        }
+        json.name("bundleInfo").beginObject();
+        json.name("bundleID").value(context.getPackageName());
+        json.name("version").value(packageInfo != null ? String.valueOf(packageInfo.versionCode) : null);
+        json.name("shortVersion").value(packageInfo != null ? packageInfo.versionName : null);
+        writeString(json, "installer", facts.getInstallerPackageName());
+        json.endObject();
+
+        ManagedVerdict verdict = snapshot.getManagedVerdict(facts);
+        IdentityFields identity = snapshot.getIdentity();
+        json.name("management").beginObject();
+        json.name("isManaged").value(verdict.isManaged());
+        json.name("downloadedFromIntune").value(verdict.isDownloadedFromIntune());
+        json.name("isDeviceOwner").value(facts.isDeviceOwner());
+        json.name("isProfileOwner").value(facts.isProfileOwner());
+        json.name("activeAdmins").value(facts.getActiveAdminCount());
+        // Identity values come from the restrictions and are as unbounded as any other value
+        writeString(json, "companyDomain", identity.getCompanyDomain());
+        writeString(json, "userPrincipal", identity.getUserPrincipal());
+        writeString(json, "accountDisplayName", identity.getAccountDisplayName());
+        json.endObject();
+
+        RestrictionsChangeMonitor monitor = RestrictionsChangeMonitor.getInstance();
+        json.name("changePipeline").beginObject();
+        json.name("receiverRegistered").value(monitor.isReceiverRegistered());
+        json.name("registrations").value(monitor.getRegistrations());
+        json.name("unregistrations").value(monitor.getUnregistrations());
+        json.name("broadcastsReceived").value(monitor.getBroadcastsReceived());
+        json.name("deliveries").value(monitor.getDeliveries());
+        json.name("redundantDeliveries").value(monitor.getRedundantDeliveries());
+        json.name("eventsEmitted").value(monitor.getEventsEmitted());
+        json.endObject();
+
+        // Written last, so everything above is kept when the cap is reached
+        json.name("configuration").beginObject();
+        json.name("version").value(snapshot.getVersion());
+        json.name("hash").value(snapshot.getContentHash());
+        json.name("stale").value(snapshot.isStale());
+        json.name("capturedAt").value(snapshot.getCapturedAt());
+        json.name("totalKeys").value(snapshot.size());
+        json.name("values").beginObject();
+        for (String key : snapshot.keysWithPrefix("")) {
+            long budget = writeName(json, key);
+            if (budget < 0) {
+                break;
+            }
+            writeValue(json, snapshot.get(key), budget);
+            writtenKeys++;
+        }
+        json.endObject();
+        json.endObject();
+
+        json.name("truncation").beginObject();
+        json.name("truncated").value(capReached);
+        json.name("writtenKeys").value(writtenKeys);
+        json.name("omittedKeys").value(snapshot.size() - writtenKeys);
+        json.name("truncatedValues").value(truncatedValues);
+        json.name("maxBytes").value(maxBytes);
+        json.name("maxValueLength").value(maxValueLength);
+        json.endObject();
+
+        json.endObject();
+    }
+
+    // Writes a value of at most budget encoded bytes, which is never less than MIN_VALUE_BYTES
+    @SuppressWarnings("deprecation")
+    private void writeValue(JsonWriter json, Object value, long budget) throws IOException {
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof String) {
+            json.value(fit((String) value, budget));
+        } else if (value instanceof Boolean) {
+            json.value((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            json.value(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                json.value(String.valueOf(number));
+            } else {
+                json.value(number);
+            }
+        } else if (value instanceof Bundle) {
+            Bundle bundle = (Bundle) value;
+            String[] keys = bundle.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            json.beginObject();
+            for (String key : keys) {
+                long itemBudget = writeName(json, key);
+                if (itemBudget < 0) {
+                    break;
+                }
+                writeValue(json, bundle.get(key), itemBudget);
+            }
+            json.endObject();
+        } else if (value instanceof Object[]) {
+            json.beginArray();
+            for (Object item : (Object[]) value) {
+                long itemBudget = budget(0);
+                if (itemBudget < 0) {
+                    break;
+                }
+                writeValue(json, item, itemBudget);
+            }
+            json.endArray();
+        } else if (value instanceof int[]) {
+            json.beginArray();
+            for (int item : (int[]) value) {
+                if (budget(0) < 0) {
+                    break;
+                }
+                json.value(item);
+            }
+            json.endArray();
+        } else {
+            json.value(fit(value.toString(), budget));
+        }
+    }
+
+    private void writeString(JsonWriter json, String name, String value) throws IOException {
+        long budget = writeName(json, name);
+        if (budget >= 0) {
+            json.value(value != null ? fit(value, budget) : null);
+        }
+    }
+
+    // Writes the name if a value still fits after it, returning the bytes left for that value, or -1
+    private long writeName(JsonWriter json, String name) throws IOException {
+        // JsonWriter holds the name back until its value, so the counter does not include it yet
+        long budget = budget(encodedLength(name) + 1);
+        if (budget >= 0) {
+            json.name(name);
+        }
+        return budget;
+    }
+
+    /**
+     * Cuts a string at {@code maxValueLength} characters and at {@code budget}
+     * encoded bytes, quotes included, appending a marker with the number of
+     * characters left out. A surrogate pair is never split.
+     */
+    private String fit(String value, long budget) {
+        long available = budget - 2;
+        int limit = Math.min(value.length(), maxValueLength);
+        int end = 0;
+        long bytes = 0;
+        while (end < limit) {
+            int length = encodedLength(value.charAt(end));
+            if (bytes + length > available) {
+                break;
+            }
+            bytes += length;
+            end++;
+        }
+        if (end == value.length()) {
+            return value;
+        }
+
+        // The marker's room comes out of the part that is kept
+        while (end > 0 && bytes + MARKER_BYTES > available) {
+            bytes -= encodedLength(value.charAt(--end));
+        }
+        if (end > 0 && Character.isHighSurrogate(value.charAt(end - 1))) {
+            end--;
+        }
+        truncatedValues++;
+        return value.substring(0, end) + "...[" + (value.length() - end) + " more chars]";
+    }
+
+    /**
+     * Bytes left for the next value after {@code overhead} bytes and its comma,
+     * keeping the reserve for closing the report. Returns -1 and marks the cap as
+     * reached once not even {@link #MIN_VALUE_BYTES} are left.
+     */
+    private long budget(long overhead) {
+        long budget = maxBytes - RESERVED_BYTES - counter.getBytes() - overhead - 1;
+        if (capReached || budget < MIN_VALUE_BYTES) {
+            capReached = true;
+            return -1;
+        }
+        return budget;
+    }
+
+    // Deletes older exports, newest first by modification time
+    private static void pruneExports(File directory, File current) {
+        File[] exports = directory.listFiles();
+        if (exports == null) {
+            return;
+        }
+        List<File> previous = new ArrayList<File>();
+        for (File export : exports) {
+            String name = export.getName();
+            if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX) && !export.equals(current)) {
+                previous.add(export);
+            }
+        }
+        if (previous.size() <= KEPT_EXPORTS) {
+            return;
+        }
+        Collections.sort(previous, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long difference = b.lastModified() - a.lastModified();
+                return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+            }
+        });
+        for (File export : previous.subList(KEPT_EXPORTS, previous.size())) {
+            if (!export.delete()) {
+                MDMLog.d("could not delete old diagnostics export");
+            }
+        }
+    }
+
+    // Length of a string as a JSON string in UTF-8, quotes included
+    static long encodedLength(String value) {
+        long bytes = 2;
+        for (int i = 0; i < value.length(); i++) {
+            bytes += encodedLength(value.charAt(i));
+        }
+        return bytes;
+    }
+
+    // JsonWriter escapes quotes, backslashes and control characters; those without a short escape and U+2028/U+2029 take six bytes
+    static int encodedLength(char c) {
+        switch (c) {
+            case '"':
+            case '\\':
+            case '\t':
+            case '\b':
+            case '\n':
+            case '\r':
+            case '\f':
+                return 2;
+            case '\u2028':
+            case '\u2029':
+                return 6;
+            default:
+                return c < 0x20 ? 6 : CountingWriter.utf8Length(c);
+        }
+    }
+
+    // Counts the UTF-8 bytes passed through to the channel writer
+    private static final class CountingWriter extends Writer {
+        private final Writer delegate;
+        private long bytes;
+
+        CountingWriter(Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                bytes += utf8Length(buffer[i]);
+            }
+            delegate.write(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String value, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                bytes += utf8Length(value.charAt(i));
+            }
+            delegate.write(value, offset, length);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            bytes += utf8Length((char) c);
+            delegate.write(c);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        // A surrogate pair encodes to four bytes, two per half
+        static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            if (c < 0x800 || Character.isSurrogate(c)) {
+                return 2;
+            }
+            return 3;
+        }
+    }
+}
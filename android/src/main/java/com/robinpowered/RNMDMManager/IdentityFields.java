@@ -0,0 +1,105 @@
+package com.robinpowered.RNMDMManager;
+
+/**
+ * Identity values derived from a {@link RestrictionsSnapshot}: company domain,
+ * user principal and account display name.
+ *
+ * They are computed once when the snapshot is built, so every reader gets them in
+ * O(1) and the precedence rules live in one place.
+ */
+final class IdentityFields {
+    static final String ACCOUNT_DOMAIN = "AccountDomain";
+    static final String ACCOUNT_EMAIL = "AccountEmail";
+    static final String ACCOUNT_NAME = "AccountName";
+    static final String ACCOUNT_USER_DISPLAY_NAME = "AccountUserDisplayName";
+    static final String INTUNE_UPN = "IntuneMAMUPN";
+
+    static final IdentityFields EMPTY = new IdentityFields(null, null, null);
+
+    private final String companyDomain;
+    private final String userPrincipal;
+    private final String accountDisplayName;
+
+    private IdentityFields(String companyDomain, String userPrincipal, String accountDisplayName) {
+        this.companyDomain = companyDomain;
+        this.userPrincipal = userPrincipal;
+        this.accountDisplayName = accountDisplayName;
+    }
+
+    static IdentityFields derive(RestrictionsSnapshot snapshot) {
+        if (snapshot.isEmpty()) {
+            return EMPTY;
+        }
+
+        String email = snapshot.getString(ACCOUNT_EMAIL);
+        String upn = snapshot.getString(INTUNE_UPN);
+
+        // Company domain: AccountDomain, then the domain of AccountEmail, then of IntuneMAMUPN
+        String companyDomain = snapshot.getString(ACCOUNT_DOMAIN);
+        if (isEmpty(companyDomain)) {
+            companyDomain = domainOf(email);
+            if (companyDomain == null) {
+                companyDomain = domainOf(upn);
+            }
+        }
+
+        // User principal: IntuneMAMUPN, then AccountEmail
+        String userPrincipal = !isEmpty(upn) ? upn : (!isEmpty(email) ? email : null);
+
+        // Display name: AccountUserDisplayName, then AccountName
+        String displayName = snapshot.getString(ACCOUNT_USER_DISPLAY_NAME);
+        if (isEmpty(displayName)) {
+            displayName = snapshot.getString(ACCOUNT_NAME);
+        }
+
+        return new IdentityFields(companyDomain, userPrincipal, !isEmpty(displayName) ? displayName : null);
+    }
+
+    String getCompanyDomain() {
+        return companyDomain;
+    }
+
+    String getUserPrincipal() {
+        return userPrincipal;
+    }
+
+    String getAccountDisplayName() {
+        return accountDisplayName;
+    }
+
+    /**
+     * Returns the second {@code @}-separated part of an address, matching
+     * {@code address.split("@")[1]} without the regex and array: null when there is
+     * no such part, which includes an address whose text after the first
+     * {@code @} consists only of {@code @} characters.
+     */
+    static String domainOf(String address) {
+        if (address == null) {
+            return null;
+        }
+        int at = address.indexOf('@');
+        if (at < 0) {
+            return null;
+        }
+
+        int end = address.indexOf('@', at + 1);
+        if (end < 0) {
+            end = address.length();
+        }
+        if (end > at + 1) {
+            return address.substring(at + 1, end);
+        }
+
+        // Empty part: split keeps it only when something other than '@' follows
+        for (int i = end; i < address.length(); i++) {
+            if (address.charAt(i) != '@') {
+                return "";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
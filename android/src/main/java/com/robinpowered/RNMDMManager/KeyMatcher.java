@@ -0,0 +1,168 @@
+package com.robinpowered.RNMDMManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, case-insensitive multi-term matcher used to discover MDM-looking
+ * restriction keys.
+ *
+ * The terms are compiled once into an Aho-Corasick automaton with every failure
+ * transition resolved up front, so {@link #matches(CharSequence)} scans a key in a
+ * single pass with no allocation. ASCII characters, already case folded, map to
+ * their transition column through a dense table, so an ASCII key costs two array
+ * lookups per character; other characters are binary-searched in the alphabet.
+ */
+final class KeyMatcher {
+    private final Set<String> terms;
+    private static final int ASCII = 128;
+
+    private final char[] alphabet;
+    // Transition column of each ASCII character after folding, negative when it is in no term
+    private final int[] asciiColumns;
+    private final int[][] transitions;
+    private final boolean[] accepting;
+
+    private KeyMatcher(Set<String> terms, char[] alphabet, int[][] transitions, boolean[] accepting) {
+        this.terms = terms;
+        this.alphabet = alphabet;
+        this.asciiColumns = new int[ASCII];
+        for (char c = 0; c < ASCII; c++) {
+            asciiColumns[c] = Arrays.binarySearch(alphabet, Character.toLowerCase(c));
+        }
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    static KeyMatcher compile(Collection<String> rawTerms) {
+        Set<String> terms = new LinkedHashSet<String>();
+        for (String term : rawTerms) {
+            if (term != null && term.length() > 0) {
+                terms.add(fold(term));
+            }
+        }
+
+        char[] alphabet = buildAlphabet(terms);
+
+        // Trie of the folded terms, state 0 is the root
+        List<int[]> trie = new ArrayList<int[]>();
+        List<Boolean> terminal = new ArrayList<Boolean>();
+        trie.add(newRow(alphabet.length));
+        terminal.add(false);
+        for (String term : terms) {
+            int state = 0;
+            for (int i = 0; i < term.length(); i++) {
+                int column = Arrays.binarySearch(alphabet, term.charAt(i));
+                int next = trie.get(state)[column];
+                if (next < 0) {
+                    next = trie.size();
+                    trie.add(newRow(alphabet.length));
+                    terminal.add(false);
+                    trie.get(state)[column] = next;
+                }
+                state = next;
+            }
+            terminal.set(state, true);
+        }
+
+        int stateCount = trie.size();
+        int[][] transitions = new int[stateCount][];
+        boolean[] accepting = new boolean[stateCount];
+        int[] failure = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            transitions[state] = trie.get(state);
+            accepting[state] = terminal.get(state);
+        }
+
+        // Breadth-first pass turning the trie into a full transition table
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int column = 0; column < alphabet.length; column++) {
+            int next = transitions[0][column];
+            if (next < 0) {
+                transitions[0][column] = 0;
+            } else {
+                failure[next] = 0;
+                queue[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            accepting[state] |= accepting[failure[state]];
+            for (int column = 0; column < alphabet.length; column++) {
+                int next = transitions[state][column];
+                if (next < 0) {
+                    transitions[state][column] = transitions[failure[state]][column];
+                } else {
+                    failure[next] = transitions[failure[state]][column];
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return new KeyMatcher(Collections.unmodifiableSet(terms), alphabet, transitions, accepting);
+    }
+
+    boolean matches(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int column = c < ASCII ? asciiColumns[c] : Arrays.binarySearch(alphabet, Character.toLowerCase(c));
+            state = column >= 0 ? transitions[state][column] : 0;
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Set<String> getTerms() {
+        return terms;
+    }
+
+    KeyMatcher with(Collection<String> extraTerms) {
+        List<String> combined = new ArrayList<String>(terms);
+        combined.addAll(extraTerms);
+        return compile(combined);
+    }
+
+    private static char[] buildAlphabet(Set<String> terms) {
+        StringBuilder chars = new StringBuilder();
+        for (String term : terms) {
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                if (chars.indexOf(String.valueOf(c)) < 0) {
+                    chars.append(c);
+                }
+            }
+        }
+        char[] alphabet = chars.toString().toCharArray();
+        Arrays.sort(alphabet);
+        return alphabet;
+    }
+
+    // Folds per character, matching the Character.toLowerCase applied while scanning
+    private static String fold(String term) {
+        char[] chars = term.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static int[] newRow(int size) {
+        int[] row = new int[size];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
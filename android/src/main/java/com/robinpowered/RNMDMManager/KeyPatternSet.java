@@ -0,0 +1,100 @@
+package com.robinpowered.RNMDMManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Restriction key patterns of one config change subscription.
+ *
+ * A pattern without wildcards matches that key exactly, one whose only wildcard is
+ * a trailing {@code *} matches a prefix, and anything else is a glob where
+ * {@code *} matches any run of characters and {@code ?} a single one. Matching is
+ * case sensitive, like restriction keys. Exact keys are a hash lookup and prefixes
+ * a {@code startsWith}, so only real globs pay for the backtracking match.
+ */
+final class KeyPatternSet {
+    private final Set<String> exact;
+    private final List<String> prefixes;
+    private final List<String> globs;
+
+    private KeyPatternSet(Set<String> exact, List<String> prefixes, List<String> globs) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+        this.globs = globs;
+    }
+
+    static KeyPatternSet compile(Collection<String> patterns) {
+        Set<String> exact = new HashSet<String>();
+        List<String> prefixes = new ArrayList<String>();
+        List<String> globs = new ArrayList<String>();
+
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+
+            int star = pattern.indexOf('*');
+            boolean hasWildcard = star >= 0 || pattern.indexOf('?') >= 0;
+            if (!hasWildcard) {
+                exact.add(pattern);
+            } else if (star == pattern.length() - 1 && pattern.indexOf('?') < 0) {
+                prefixes.add(pattern.substring(0, star));
+            } else {
+                globs.add(pattern);
+            }
+        }
+        return new KeyPatternSet(exact, prefixes, globs);
+    }
+
+    boolean isEmpty() {
+        return exact.isEmpty() && prefixes.isEmpty() && globs.isEmpty();
+    }
+
+    boolean matches(String key) {
+        if (exact.contains(key)) {
+            return true;
+        }
+        for (int i = 0; i < prefixes.size(); i++) {
+            if (key.startsWith(prefixes.get(i))) {
+                return true;
+            }
+        }
+        for (int i = 0; i < globs.size(); i++) {
+            if (globMatches(globs.get(i), key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Iterative glob match that backtracks only to the last '*', so it is linear for typical patterns
+    static boolean globMatches(String pattern, String key) {
+        int p = 0;
+        int k = 0;
+        int starPattern = -1;
+        int starKey = 0;
+
+        while (k < key.length()) {
+            if (p < pattern.length() && pattern.charAt(p) == '*') {
+                starPattern = p++;
+                starKey = k;
+            } else if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == key.charAt(k))) {
+                p++;
+                k++;
+            } else if (starPattern >= 0) {
+                p = starPattern + 1;
+                k = ++starKey;
+            } else {
+                return false;
+            }
+        }
+
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+}
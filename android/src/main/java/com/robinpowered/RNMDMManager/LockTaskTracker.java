@@ -0,0 +1,129 @@
+package com.robinpowered.RNMDMManager;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide lock-task (kiosk) state, so {@code isAppLocked} is answered from
+ * memory instead of an {@link ActivityManager} binder call per poll.
+ *
+ * The state is read once, then updated when lockApp/unlockApp complete, when the
+ * host activity resumes and when the app's DeviceAdminReceiver reports lock-task
+ * transitions. Listeners only hear about actual transitions.
+ */
+final class LockTaskTracker {
+    interface Listener {
+        void onLockStateChanged(boolean locked);
+    }
+
+    // Re-reads after startLockTask/stopLockTask, since screen pinning may wait for the user to confirm
+    private static final long[] CONFIRMATION_DELAYS_MS = {0, 500, 2000};
+
+    private static final LockTaskTracker INSTANCE = new LockTaskTracker();
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    private Handler mainHandler;
+    private Context applicationContext;
+    private Boolean locked;
+
+    private final Runnable confirmState = new Runnable() {
+        @Override
+        public void run() {
+            Context context;
+            synchronized (LockTaskTracker.this) {
+                context = applicationContext;
+            }
+            if (context != null) {
+                refresh(context);
+            }
+        }
+    };
+
+    private LockTaskTracker() {
+    }
+
+    static LockTaskTracker getInstance() {
+        return INSTANCE;
+    }
+
+    void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    boolean isLocked(Context context) {
+        synchronized (this) {
+            if (locked != null) {
+                return locked;
+            }
+        }
+        boolean current = readLockState(context);
+        synchronized (this) {
+            if (locked == null) {
+                locked = current;
+            }
+            return locked;
+        }
+    }
+
+    void refresh(Context context) {
+        synchronized (this) {
+            applicationContext = context.getApplicationContext();
+        }
+        update(readLockState(context));
+    }
+
+    // Confirms the outcome of startLockTask/stopLockTask a few times over the next seconds
+    void confirm(Context context) {
+        Handler handler;
+        synchronized (this) {
+            applicationContext = context.getApplicationContext();
+            if (mainHandler == null) {
+                mainHandler = new Handler(Looper.getMainLooper());
+            }
+            handler = mainHandler;
+        }
+        handler.removeCallbacks(confirmState);
+        for (long delay : CONFIRMATION_DELAYS_MS) {
+            handler.postDelayed(confirmState, delay);
+        }
+    }
+
+    void update(boolean current) {
+        boolean changed;
+        synchronized (this) {
+            changed = locked != null && locked != current;
+            locked = current;
+        }
+        if (!changed) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.onLockStateChanged(current);
+        }
+    }
+
+    static boolean readLockState(Context context) {
+        // lock state introduced in API 21 / Android 5.0 and up
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+
+        ActivityManager am = (ActivityManager) context.getApplicationContext().getSystemService(Context.ACTIVITY_SERVICE);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return am.getLockTaskModeState() != ActivityManager.LOCK_TASK_MODE_NONE;
+        } else {
+            return am.isInLockTaskMode();
+        }
+    }
+}
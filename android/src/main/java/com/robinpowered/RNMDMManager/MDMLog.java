@@ -0,0 +1,155 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+import android.util.Log;
+
+/**
+ * Level-gated logging for the module.
+ *
+ * Records are written as an event name followed by {@code key=value} pairs. The
+ * level check happens before anything is formatted, and the fixed-arity overloads
+ * avoid varargs arrays, so a disabled level costs a couple of field reads. Callers
+ * log keys, counts and verdicts, never managed configuration values.
+ *
+ * The level defaults to {@code debug} for debuggable builds and {@code warn}
+ * otherwise. It can be set with the {@value #LEVEL_META_DATA} manifest meta-data
+ * or from JS through {@code setLogLevel}. The manifest is only read when the first
+ * record is checked, so creating the module does no package manager work.
+ */
+final class MDMLog {
+    static final String TAG = "RNMobileDeviceManager";
+    static final String LEVEL_META_DATA = "com.robinpowered.RNMDMManager.LOG_LEVEL";
+
+    static final int NONE = Log.ASSERT + 1;
+
+    private static final String[] LEVEL_NAMES = {"verbose", "debug", "info", "warn", "error"};
+
+    private static volatile int level = Log.WARN;
+    private static volatile boolean configured;
+    private static volatile Context applicationContext;
+
+    private MDMLog() {
+    }
+
+    // Only remembers the context; the defaults are applied on the first level check
+    static void configure(Context context) {
+        if (!configured && applicationContext == null) {
+            applicationContext = context.getApplicationContext();
+        }
+    }
+
+    // Applies the manifest or build default once per process; a level set from JS wins
+    private static void applyDefaults() {
+        synchronized (MDMLog.class) {
+            Context context = applicationContext;
+            if (configured || context == null) {
+                return;
+            }
+            configured = true;
+            try {
+                ApplicationInfo appInfo = ManagementFacts.get(context).getApplicationInfo();
+                Bundle metaData = appInfo.metaData;
+                int manifestLevel = metaData != null ? parseLevel(metaData.getString(LEVEL_META_DATA)) : -1;
+                if (manifestLevel >= 0) {
+                    level = manifestLevel;
+                } else if ((appInfo.flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+                    level = Log.DEBUG;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Could not read log level: " + e.getMessage());
+            }
+        }
+    }
+
+    static void setLevel(int newLevel) {
+        configured = true;
+        level = newLevel;
+    }
+
+    // Returns -1 for unknown names
+    static int parseLevel(String name) {
+        if (name == null) {
+            return -1;
+        }
+        if ("none".equalsIgnoreCase(name)) {
+            return NONE;
+        }
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equalsIgnoreCase(name)) {
+                return Log.VERBOSE + i;
+            }
+        }
+        return -1;
+    }
+
+    static String levelName(int priority) {
+        int index = priority - Log.VERBOSE;
+        return index >= 0 && index < LEVEL_NAMES.length ? LEVEL_NAMES[index] : "none";
+    }
+
+    static boolean isLoggable(int priority) {
+        if (!configured && applicationContext != null) {
+            applyDefaults();
+        }
+        return priority >= level;
+    }
+
+    static void d(String event) {
+        if (isLoggable(Log.DEBUG)) {
+            Log.d(TAG, event);
+        }
+    }
+
+    static void d(String event, String key, long value) {
+        if (isLoggable(Log.DEBUG)) {
+            Log.d(TAG, record(event).append(' ').append(key).append('=').append(value).toString());
+        }
+    }
+
+    static void d(String event, String key, Object value) {
+        if (isLoggable(Log.DEBUG)) {
+            Log.d(TAG, append(record(event), key, value).toString());
+        }
+    }
+
+    static void d(String event, String key1, long value1, String key2, boolean value2) {
+        if (isLoggable(Log.DEBUG)) {
+            Log.d(TAG, record(event).append(' ').append(key1).append('=').append(value1)
+                    .append(' ').append(key2).append('=').append(value2).toString());
+        }
+    }
+
+    static void d(String event, String key1, Object value1, String key2, Object value2) {
+        if (isLoggable(Log.DEBUG)) {
+            Log.d(TAG, append(append(record(event), key1, value1), key2, value2).toString());
+        }
+    }
+
+    static void d(String event, String key1, Object value1, String key2, Object value2, String key3, Object value3) {
+        if (isLoggable(Log.DEBUG)) {
+            Log.d(TAG, append(append(append(record(event), key1, value1), key2, value2), key3, value3).toString());
+        }
+    }
+
+    static void w(String event, Throwable error) {
+        if (isLoggable(Log.WARN)) {
+            Log.w(TAG, append(record(event), "error", error.getMessage()).toString());
+        }
+    }
+
+    static void e(String event, Throwable error) {
+        if (isLoggable(Log.ERROR)) {
+            Log.e(TAG, append(record(event), "error", error.getMessage()).toString());
+        }
+    }
+
+    private static StringBuilder record(String event) {
+        return new StringBuilder(64).append(event);
+    }
+
+    private static StringBuilder append(StringBuilder record, String key, Object value) {
+        return record.append(' ').append(key).append('=').append(value);
+    }
+}
@@ -0,0 +1,173 @@
+package com.robinpowered.RNMDMManager;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide counters for the module's hot paths: calls and a latency histogram
+ * per {@code @ReactMethod}, system-service binder invocations, broadcasts received
+ * and events emitted. Background jobs (prewarm, prefetch, diagnostics export) are
+ * timed the same way together with the number of items they processed. The
+ * per-key internals are measured by the JMH benchmarks instead, so they carry no
+ * timers in production.
+ *
+ * Recording is lock-free. All counters live in one holder, and reading with reset
+ * swaps in a fresh holder in a single step. Every report covers one interval
+ * starting at {@code since}, and nothing is counted in two reports. A record racing
+ * the swap may land in the retired holder after it was read and go unreported.
+ */
+final class MDMMetrics {
+    // Upper bounds of the latency buckets in ms; the last bucket is open ended
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500};
+
+    private static final MDMMetrics INSTANCE = new MDMMetrics();
+
+    private final AtomicReference<Counters> counters = new AtomicReference<Counters>(new Counters());
+
+    private MDMMetrics() {
+    }
+
+    static MDMMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    long startCall() {
+        return System.nanoTime();
+    }
+
+    void endCall(String method, long startNanos) {
+        statsFor(counters.get().methods, method).record(System.nanoTime() - startNanos, 0);
+    }
+
+    void endPath(String path, long startNanos, int items) {
+        statsFor(counters.get().paths, path).record(System.nanoTime() - startNanos, items);
+    }
+
+    void countRestrictionsManagerCall() {
+        counters.get().restrictionsManagerCalls.incrementAndGet();
+    }
+
+    void countDevicePolicyManagerCall() {
+        counters.get().devicePolicyManagerCalls.incrementAndGet();
+    }
+
+    void countPackageManagerCall() {
+        counters.get().packageManagerCalls.incrementAndGet();
+    }
+
+    void countBroadcast() {
+        counters.get().broadcastsReceived.incrementAndGet();
+    }
+
+    void countEvent() {
+        counters.get().eventsEmitted.incrementAndGet();
+    }
+
+    WritableMap toWritableMap(boolean reset) {
+        Counters read = reset ? counters.getAndSet(new Counters()) : counters.get();
+
+        WritableMap metrics = Arguments.createMap();
+        metrics.putDouble("since", read.since);
+
+        WritableArray bounds = Arguments.createArray();
+        for (long bound : BUCKET_BOUNDS_MS) {
+            bounds.pushDouble(bound);
+        }
+        metrics.putArray("histogramBoundsMs", bounds);
+
+        metrics.putMap("methods", toWritableMap(read.methods));
+        metrics.putMap("paths", toWritableMap(read.paths));
+
+        WritableMap binderCalls = Arguments.createMap();
+        binderCalls.putDouble("restrictionsManager", read.restrictionsManagerCalls.get());
+        binderCalls.putDouble("devicePolicyManager", read.devicePolicyManagerCalls.get());
+        binderCalls.putDouble("packageManager", read.packageManagerCalls.get());
+        metrics.putMap("binderCalls", binderCalls);
+
+        metrics.putDouble("broadcastsReceived", read.broadcastsReceived.get());
+        metrics.putDouble("eventsEmitted", read.eventsEmitted.get());
+        return metrics;
+    }
+
+    private static MethodStats statsFor(ConcurrentHashMap<String, MethodStats> table, String name) {
+        MethodStats stats = table.get(name);
+        if (stats == null) {
+            MethodStats created = new MethodStats();
+            stats = table.putIfAbsent(name, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    private static WritableMap toWritableMap(ConcurrentHashMap<String, MethodStats> table) {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, MethodStats> entry : table.entrySet()) {
+            map.putMap(entry.getKey(), entry.getValue().toWritableMap());
+        }
+        return map;
+    }
+
+    // Everything recorded since one reset, replaced as a whole by the next
+    private static final class Counters {
+        final long since = System.currentTimeMillis();
+        final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<String, MethodStats>();
+        final ConcurrentHashMap<String, MethodStats> paths = new ConcurrentHashMap<String, MethodStats>();
+        final AtomicLong restrictionsManagerCalls = new AtomicLong();
+        final AtomicLong devicePolicyManagerCalls = new AtomicLong();
+        final AtomicLong packageManagerCalls = new AtomicLong();
+        final AtomicLong broadcastsReceived = new AtomicLong();
+        final AtomicLong eventsEmitted = new AtomicLong();
+    }
+
+    private static final class MethodStats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+        void record(long nanos, int itemCount) {
+            calls.incrementAndGet();
+            items.addAndGet(itemCount);
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+            histogram.incrementAndGet(bucketOf(nanos));
+        }
+
+        WritableMap toWritableMap() {
+            WritableMap map = Arguments.createMap();
+            map.putDouble("calls", calls.get());
+            map.putDouble("totalMs", totalNanos.get() / 1e6);
+            map.putDouble("maxMs", maxNanos.get() / 1e6);
+            map.putDouble("items", items.get());
+            WritableArray buckets = Arguments.createArray();
+            for (int i = 0; i < histogram.length(); i++) {
+                buckets.pushDouble(histogram.get(i));
+            }
+            map.putArray("histogram", buckets);
+            return map;
+        }
+
+        private static int bucketOf(long nanos) {
+            long millis = nanos / 1000000;
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                if (millis < BUCKET_BOUNDS_MS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_MS.length;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Build;
+
+/**
+ * Whether the app is managed and whether it was distributed through Intune, as
+ * decided for one {@link RestrictionsSnapshot} and one {@link ManagementFacts}
+ * instance. The snapshot caches its verdict and only re-evaluates it when the
+ * facts are invalidated.
+ */
+final class ManagedVerdict {
+    private final ManagementFacts facts;
+    private final boolean managed;
+    private final boolean downloadedFromIntune;
+
+    private ManagedVerdict(ManagementFacts facts, boolean managed, boolean downloadedFromIntune) {
+        this.facts = facts;
+        this.managed = managed;
+        this.downloadedFromIntune = downloadedFromIntune;
+    }
+
+    boolean isManaged() {
+        return managed;
+    }
+
+    boolean isDownloadedFromIntune() {
+        return downloadedFromIntune;
+    }
+
+    boolean isFor(ManagementFacts facts) {
+        return this.facts == facts;
+    }
+
+    static ManagedVerdict evaluate(RestrictionsSnapshot appRestrictions, ManagementFacts facts) {
+        boolean downloadedFromIntune = checkIfDownloadedFromIntune(appRestrictions, facts);
+        boolean isManaged = false;
+
+        // 1. Check RestrictionsManager for app restrictions (most reliable)
+        if (appRestrictions.size() > 0) {
+            MDMLog.d("managed via restrictions", "keys", appRestrictions.size());
+            isManaged = true;
+        }
+
+        // 2. Check if device has active device administrators (device-level management)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && facts.getActiveAdminCount() > 0) {
+            MDMLog.d("device has active admins");
+
+            // Only consider managed if THIS app is managed, not just the device
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                if (facts.isDeviceOwner() || facts.isProfileOwner()) {
+                    MDMLog.d("app is device or profile owner");
+                    isManaged = true;
+                } else {
+                    MDMLog.d("device has admins but app is not owner");
+                }
+            }
+        }
+
+        // 3. Check if downloaded from Intune (only if we have restrictions or ownership)
+        if (!isManaged && downloadedFromIntune) {
+            MDMLog.d("managed via intune distribution");
+            isManaged = true;
+        }
+
+        MDMLog.d("managed verdict", "isManaged", isManaged);
+        return new ManagedVerdict(facts, isManaged, downloadedFromIntune);
+    }
+
+    private static boolean checkIfDownloadedFromIntune(RestrictionsSnapshot appRestrictions, ManagementFacts facts) {
+        try {
+            String installerPackage = facts.getInstallerPackageName();
+
+            MDMLog.d("installer", "package", installerPackage);
+
+            // 1. Check installer package - be very specific
+            if (installerPackage != null) {
+                // Only consider specific Intune/enterprise installers
+                if (installerPackage.equals("com.microsoft.windowsintune.companyportal") ||
+                    installerPackage.equals("com.microsoft.intune") ||
+                    installerPackage.contains("enterprisestore") ||
+                    installerPackage.contains("workprofile")) {
+                    MDMLog.d("intune verdict", "fromIntune", true, "reason", "installer");
+                    return true;
+                }
+
+                // If installed from Play Store or unknown/null, likely not from Intune
+                if (installerPackage.equals("com.android.vending") ||
+                    installerPackage.equals("com.google.android.packageinstaller")) {
+                    MDMLog.d("intune verdict", "fromIntune", false, "reason", "store installer");
+                    return false;
+                }
+            }
+
+            // 2. If installer is null (sideloaded APK), check for other Intune indicators
+            if (installerPackage == null) {
+                MDMLog.d("no installer package");
+
+                // Only consider Intune if there are actual MDM restrictions
+                if (appRestrictions.size() > 0) {
+                    MDMLog.d("intune verdict", "fromIntune", true, "reason", "sideloaded with restrictions");
+                    return true;
+                }
+
+                return false;
+            }
+
+            // 3. Check if device is device owner or profile owner (high confidence Intune)
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && (facts.isDeviceOwner() || facts.isProfileOwner())) {
+                MDMLog.d("intune verdict", "fromIntune", true, "reason", "owner");
+                return true;
+            }
+
+        } catch (Exception e) {
+            MDMLog.e("intune check failed", e);
+        }
+
+        MDMLog.d("intune verdict", "fromIntune", false);
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package com.robinpowered.RNMDMManager;
+
+import android.app.admin.DeviceAdminReceiver;
+import android.app.admin.DevicePolicyManager;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import java.util.List;
+
+/**
+ * Memoized device-ownership and install-source facts for this app.
+ *
+ * These values practically never change during a process lifetime, so each one is
+ * computed at most once per {@link ManagementFacts} instance. The instance is
+ * dropped when the system reports a change in device ownership, profile
+ * provisioning, device admins or the installed package.
+ */
+final class ManagementFacts {
+    private static volatile ManagementFacts current;
+    private static BroadcastReceiver invalidationReceiver;
+
+    private final Context context;
+    private final String packageName;
+
+    private Boolean deviceOwner;
+    private Boolean profileOwner;
+    private Integer activeAdminCount;
+    private boolean installerResolved;
+    private String installerPackageName;
+    private PackageInfo packageInfo;
+    private String displayName;
+
+    private ManagementFacts(Context context) {
+        this.context = context;
+        this.packageName = context.getPackageName();
+    }
+
+    static ManagementFacts get(Context context) {
+        ManagementFacts facts = current;
+        if (facts != null) {
+            return facts;
+        }
+
+        synchronized (ManagementFacts.class) {
+            if (current == null) {
+                Context applicationContext = context.getApplicationContext();
+                registerInvalidationReceiver(applicationContext);
+                current = new ManagementFacts(applicationContext);
+            }
+            return current;
+        }
+    }
+
+    static void invalidate() {
+        current = null;
+    }
+
+    synchronized boolean isDeviceOwner() {
+        if (deviceOwner == null) {
+            boolean result = false;
+            DevicePolicyManager dpm = getDevicePolicyManager();
+            if (dpm != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                try {
+                    MDMMetrics.getInstance().countDevicePolicyManagerCall();
+                    result = dpm.isDeviceOwnerApp(packageName);
+                } catch (Exception e) {
+                    MDMLog.d("could not check device owner", "error", e.getMessage());
+                }
+            }
+            deviceOwner = result;
+        }
+        return deviceOwner;
+    }
+
+    synchronized boolean isProfileOwner() {
+        if (profileOwner == null) {
+            boolean result = false;
+            DevicePolicyManager dpm = getDevicePolicyManager();
+            if (dpm != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                try {
+                    MDMMetrics.getInstance().countDevicePolicyManagerCall();
+                    result = dpm.isProfileOwnerApp(packageName);
+                } catch (Exception e) {
+                    MDMLog.d("could not check profile owner", "error", e.getMessage());
+                }
+            }
+            profileOwner = result;
+        }
+        return profileOwner;
+    }
+
+    synchronized int getActiveAdminCount() {
+        if (activeAdminCount == null) {
+            int result = 0;
+            DevicePolicyManager dpm = getDevicePolicyManager();
+            if (dpm != null) {
+                try {
+                    MDMMetrics.getInstance().countDevicePolicyManagerCall();
+                    List<ComponentName> activeAdmins = dpm.getActiveAdmins();
+                    result = activeAdmins != null ? activeAdmins.size() : 0;
+                } catch (Exception e) {
+                    MDMLog.d("could not check active admins", "error", e.getMessage());
+                }
+            }
+            activeAdminCount = result;
+        }
+        return activeAdminCount;
+    }
+
+    synchronized String getInstallerPackageName() {
+        if (!installerResolved) {
+            MDMMetrics.getInstance().countPackageManagerCall();
+            installerPackageName = context.getPackageManager().getInstallerPackageName(packageName);
+            installerResolved = true;
+        }
+        return installerPackageName;
+    }
+
+    // Fetched with GET_META_DATA so the same call also serves applicationInfo and its metadata
+    synchronized PackageInfo getPackageInfo() throws PackageManager.NameNotFoundException {
+        if (packageInfo == null) {
+            MDMMetrics.getInstance().countPackageManagerCall();
+            packageInfo = context.getPackageManager().getPackageInfo(packageName, PackageManager.GET_META_DATA);
+        }
+        return packageInfo;
+    }
+
+    ApplicationInfo getApplicationInfo() throws PackageManager.NameNotFoundException {
+        return getPackageInfo().applicationInfo;
+    }
+
+    synchronized String getDisplayName() throws PackageManager.NameNotFoundException {
+        if (displayName == null) {
+            MDMMetrics.getInstance().countPackageManagerCall();
+            displayName = context.getPackageManager().getApplicationLabel(getApplicationInfo()).toString();
+        }
+        return displayName;
+    }
+
+    private DevicePolicyManager getDevicePolicyManager() {
+        return (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
+    }
+
+    // Registered once per process on the application context
+    private static void registerInvalidationReceiver(Context applicationContext) {
+        if (invalidationReceiver != null) {
+            return;
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(DevicePolicyManager.ACTION_DEVICE_OWNER_CHANGED);
+        filter.addAction(DevicePolicyManager.ACTION_MANAGED_PROFILE_PROVISIONED);
+        filter.addAction(DeviceAdminReceiver.ACTION_DEVICE_ADMIN_ENABLED);
+        filter.addAction(DeviceAdminReceiver.ACTION_DEVICE_ADMIN_DISABLED);
+        filter.addAction(Intent.ACTION_MY_PACKAGE_REPLACED);
+
+        invalidationReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                MDMMetrics.getInstance().countBroadcast();
+                invalidate();
+            }
+        };
+        applicationContext.registerReceiver(invalidationReceiver, filter);
+    }
+}
@@ -10,103 +10,236 @@ import com.facebook.react.bridge.Promise;
 import android.app.Activity;
 import android.app.admin.DevicePolicyManager;
 import android.content.RestrictionsManager;
-import android.app.ActivityManager;
-import android.os.Bundle;
 import android.os.Build;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.BroadcastReceiver;
+import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
-import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.UiThreadUtil;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
-import android.content.pm.PackageManager;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
-import android.util.Log;
 
+@ReactModule(name = RNMobileDeviceManagerModule.MODULE_NAME)
 public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule implements LifecycleEventListener {
     public static final String MODULE_NAME = "MobileDeviceManager";
-    private static final String TAG = "RNMobileDeviceManager";
 
     public static final String APP_CONFIG_CHANGED = "react-native-mdm/managedAppConfigDidChange";
     public static final String APP_LOCK_STATUS_CHANGED = "react-native-mdm/appLockStatusDidChange";
+    public static final String APP_CONFIG_DELTA = "react-native-mdm/managedAppConfigDelta";
+    public static final String APP_CONFIG_SUBSCRIPTION = "react-native-mdm/managedAppConfigSubscription";
+
+    // Change event modes, see setConfigChangeEventMode
+    public static final String CHANGE_EVENT_MODE_FULL = "full";
+    public static final String CHANGE_EVENT_MODE_DELTA = "delta";
+
+    private volatile String changeEventMode = CHANGE_EVENT_MODE_FULL;
+
+    // Key patterns by subscription ID, see subscribeToConfigChanges
+    private final ConcurrentHashMap<String, KeyPatternSet> subscriptions = new ConcurrentHashMap<String, KeyPatternSet>();
+
+    // Sections accepted by getAll
+    public static final String SECTION_DEVICE_INFO = "deviceInfo";
+    public static final String SECTION_ENROLLMENT_STATUS = "enrollmentStatus";
+    public static final String SECTION_CAPABILITIES = "capabilities";
+    public static final String SECTION_ORGANIZATION_INFO = "organizationInfo";
+
+    private static final List<String> ALL_SECTIONS = Arrays.asList(
+            SECTION_DEVICE_INFO, SECTION_ENROLLMENT_STATUS, SECTION_CAPABILITIES, SECTION_ORGANIZATION_INFO);
+
+    // Terms that mark a restriction key as MDM related, extended by the app through addKeySearchTerms
+    private static volatile KeyMatcher directKeyMatcher = KeyMatcher.compile(
+            Arrays.asList("managed", "intune", "mdm", "policy", "account"));
+    private static volatile KeyMatcher diagnosticsKeyMatcher = KeyMatcher.compile(
+            Arrays.asList("managed", "intune", "config", "policy", "account"));
+
+    private final RestrictionsChangeMonitor.Listener restrictionsListener = new RestrictionsChangeMonitor.Listener() {
+        @Override
+        public void onRestrictionsChanged(RestrictionsSnapshot appRestrictions, RestrictionsDelta delta) {
+            ReactApplicationContext reactContext = getReactApplicationContext();
+            if (!reactContext.hasActiveCatalystInstance()) {
+                return;
+            }
+
+            if (!delta.isEmpty() && !subscriptions.isEmpty()) {
+                emitSubscriptionEvents(appRestrictions, delta);
+            }
 
-    private BroadcastReceiver restrictionReceiver;
+            if (CHANGE_EVENT_MODE_DELTA.equals(changeEventMode)) {
+                // Nothing is sent when the new restrictions are identical to the previous ones
+                if (!delta.isEmpty()) {
+                    emitEvent(APP_CONFIG_DELTA, createDeltaMap(appRestrictions, delta));
+                }
+                return;
+            }
+
+            emitEvent(APP_CONFIG_CHANGED, createConfigurationMap(appRestrictions));
+        }
+    };
+
+    private final LockTaskTracker.Listener lockTaskListener = new LockTaskTracker.Listener() {
+        @Override
+        public void onLockStateChanged(boolean locked) {
+            if (!getReactApplicationContext().hasActiveCatalystInstance()) {
+                return;
+            }
+
+            // Same payload as the iOS guided access notification
+            WritableMap data = Arguments.createMap();
+            data.putBoolean("appLocked", locked);
+            data.putBoolean("appLockingAllowed", isLockStatePermitted());
+            emitEvent(APP_LOCK_STATUS_CHANGED, data);
+        }
+    };
 
     public RNMobileDeviceManagerModule(ReactApplicationContext reactContext) {
         super(reactContext);
+        // Cheap: the log level is only read from the manifest when the first record is checked
+        MDMLog.configure(reactContext);
     }
 
-    private void maybeUnregisterReceiver() {
-        if (restrictionReceiver == null) {
-            return;
-        }
+    // Device-admin broadcasts are only delivered to the admin's own receiver, so apps that
+    // are their own DPC should call this from their DeviceAdminReceiver callbacks.
+    public static void notifyManagementStateChanged() {
+        ManagementFacts.invalidate();
+    }
 
-        getReactApplicationContext().unregisterReceiver(restrictionReceiver);
+    // Lock-task transitions are likewise reported to the DPC's DeviceAdminReceiver
+    // (onLockTaskModeEntering / onLockTaskModeExiting); forwarding them keeps
+    // isAppLocked and APP_LOCK_STATUS_CHANGED current without polling.
+    public static void notifyLockTaskModeEntering() {
+        LockTaskTracker.getInstance().update(true);
+    }
 
-        restrictionReceiver = null;
+    public static void notifyLockTaskModeExiting() {
+        LockTaskTracker.getInstance().update(false);
     }
 
-    private void maybeRegisterReceiver() {
-        final ReactApplicationContext reactContext = getReactApplicationContext();
+    private void emitEvent(String eventName, Object data) {
+        getReactApplicationContext()
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(eventName, data);
+        RestrictionsChangeMonitor.getInstance().recordEventEmitted();
+        MDMMetrics.getInstance().countEvent();
+    }
 
-        if (restrictionReceiver != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
-            return;
-        }
+    private WritableMap createConfigurationMap(RestrictionsSnapshot appRestrictions) {
+        return RestrictionsConverter.toWritableMap(appRestrictions);
+    }
 
-        final RestrictionsManager restrictionsManager = (RestrictionsManager) reactContext.getSystemService(Context.RESTRICTIONS_SERVICE);
+    // One event per subscription whose patterns match a changed key, carrying only those keys
+    private void emitSubscriptionEvents(RestrictionsSnapshot appRestrictions, RestrictionsDelta delta) {
+        for (Map.Entry<String, KeyPatternSet> subscription : subscriptions.entrySet()) {
+            KeyPatternSet patterns = subscription.getValue();
+            WritableMap added = null;
+            WritableMap changed = null;
+            WritableArray removed = null;
 
-        IntentFilter restrictionFilter = new IntentFilter(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED);
-        BroadcastReceiver restrictionReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-                WritableNativeMap data = new WritableNativeMap();
-                for (String key : appRestrictions.keySet()){
-                    data.putString(key, appRestrictions.getString(key));
+            for (String key : delta.getAdded()) {
+                if (patterns.matches(key)) {
+                    added = added != null ? added : Arguments.createMap();
+                    RestrictionsConverter.putValue(added, key, appRestrictions.get(key));
                 }
-                if (reactContext.hasActiveCatalystInstance()) {
-                    reactContext
-                            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                            .emit(APP_CONFIG_CHANGED, data);
+            }
+            for (String key : delta.getChanged()) {
+                if (patterns.matches(key)) {
+                    changed = changed != null ? changed : Arguments.createMap();
+                    RestrictionsConverter.putValue(changed, key, appRestrictions.get(key));
+                }
+            }
+            for (String key : delta.getRemoved()) {
+                if (patterns.matches(key)) {
+                    removed = removed != null ? removed : Arguments.createArray();
+                    removed.pushString(key);
                 }
             }
-        };
-        reactContext.registerReceiver(restrictionReceiver,restrictionFilter);
-    }
 
-    public boolean enableLockState() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && !isLockState()) {
-            Activity activity = getCurrentActivity();
-            if (activity == null) {
-                return false;
+            if (added == null && changed == null && removed == null) {
+                continue;
             }
-            activity.startLockTask();
-            return true;
+
+            WritableMap data = Arguments.createMap();
+            data.putString("subscriptionId", subscription.getKey());
+            data.putDouble("version", delta.getVersion());
+            data.putDouble("previousVersion", delta.getPreviousVersion());
+            data.putString("hash", appRestrictions.getContentHash());
+            data.putMap("added", added != null ? added : Arguments.createMap());
+            data.putMap("changed", changed != null ? changed : Arguments.createMap());
+            data.putArray("removed", removed != null ? removed : Arguments.createArray());
+            emitEvent(APP_CONFIG_SUBSCRIPTION, data);
         }
-        return false;
     }
 
-    public boolean disableLockState() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && isLockState()) {
-            Activity activity = getCurrentActivity();
-            if (activity == null) {
-                return false;
-            }
-            activity.stopLockTask();
-            return true;
+    private WritableMap createDeltaMap(RestrictionsSnapshot appRestrictions, RestrictionsDelta delta) {
+        WritableMap added = Arguments.createMap();
+        for (String key : delta.getAdded()) {
+            RestrictionsConverter.putValue(added, key, appRestrictions.get(key));
+        }
+
+        WritableMap changed = Arguments.createMap();
+        for (String key : delta.getChanged()) {
+            RestrictionsConverter.putValue(changed, key, appRestrictions.get(key));
+        }
+
+        WritableArray removed = Arguments.createArray();
+        for (String key : delta.getRemoved()) {
+            removed.pushString(key);
+        }
+
+        WritableMap data = Arguments.createMap();
+        data.putDouble("version", delta.getVersion());
+        data.putDouble("previousVersion", delta.getPreviousVersion());
+        data.putString("hash", appRestrictions.getContentHash());
+        data.putMap("added", added);
+        data.putMap("changed", changed);
+        data.putArray("removed", removed);
+
+        // Derived fields of the new snapshot, already computed when it was built
+        WritableMap derived = Arguments.createMap();
+        putIdentity(derived, appRestrictions.getIdentity());
+        derived.putBoolean("isManaged", appRestrictions.getManagedVerdict(getManagementFacts()).isManaged());
+        data.putMap("derived", derived);
+        return data;
+    }
+
+    private static void putIdentity(WritableMap map, IdentityFields identity) {
+        putNullableString(map, "companyDomain", identity.getCompanyDomain());
+        putNullableString(map, "userPrincipal", identity.getUserPrincipal());
+        putNullableString(map, "accountDisplayName", identity.getAccountDisplayName());
+    }
+
+    private static void putNullableString(WritableMap map, String key, String value) {
+        if (value != null) {
+            map.putString(key, value);
+        } else {
+            map.putNull(key);
+        }
+    }
+
+    private void maybeUnregisterReceiver() {
+        RestrictionsChangeMonitor.getInstance().release(restrictionsListener);
+    }
+
+    private void maybeRegisterReceiver() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
         }
-        return false;
+
+        // The monitor is ref-counted per listener, so repeated resumes are no-ops
+        RestrictionsChangeMonitor.getInstance().acquire(getReactApplicationContext(), restrictionsListener);
     }
 
     public boolean isLockStatePermitted() {
@@ -118,22 +251,12 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
         DevicePolicyManager dpm = (DevicePolicyManager)
                 getReactApplicationContext().getSystemService(Context.DEVICE_POLICY_SERVICE);
 
+        MDMMetrics.getInstance().countDevicePolicyManagerCall();
         return dpm.isLockTaskPermitted(getReactApplicationContext().getPackageName());
     }
 
     public boolean isLockState() {
-        // lock state introduced in API 21 / Android 5.0 and up
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
-            return false;
-        }
-
-        ActivityManager am = (ActivityManager) getReactApplicationContext().getSystemService(Context.ACTIVITY_SERVICE);
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            return am.getLockTaskModeState() != ActivityManager.LOCK_TASK_MODE_NONE;
-        } else {
-            return am.isInLockTaskMode();
-        }
+        return LockTaskTracker.readLockState(getReactApplicationContext());
     }
 
     @Override
@@ -146,6 +269,8 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
         HashMap<String, Object> constants = new HashMap<String, Object>();
         constants.put("APP_CONFIG_CHANGED", APP_CONFIG_CHANGED);
         constants.put("APP_LOCK_STATUS_CHANGED", APP_LOCK_STATUS_CHANGED);
+        constants.put("APP_CONFIG_DELTA", APP_CONFIG_DELTA);
+        constants.put("APP_CONFIG_SUBSCRIPTION", APP_CONFIG_SUBSCRIPTION);
         return constants;
     }
 
@@ -155,97 +280,231 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             return false;
         }
 
-        // Else, we look at restrictions manager and see if there's any app config settings in there
-        RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
-        return restrictionsManager.getApplicationRestrictions().size() > 0;
+        // Else, we look at the cached restrictions and see if there's any app config settings in there
+        return getRestrictionsSnapshot().size() > 0;
+    }
+
+    private RestrictionsSnapshot getRestrictionsSnapshot() {
+        return RestrictionsSnapshotCache.getInstance().get(getReactApplicationContext());
+    }
+
+    private ManagementFacts getManagementFacts() {
+        return ManagementFacts.get(getReactApplicationContext());
     }
 
     @ReactMethod
     public void isSupported(final Promise promise) {
-        promise.resolve(isMDMSupported());
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            promise.resolve(isMDMSupported());
+        } finally {
+            MDMMetrics.getInstance().endCall("isSupported", start);
+        }
     }
 
     @ReactMethod
     public void getConfiguration(final Promise promise) {
-        if (isMDMSupported()) {
-            RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
-            Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-            WritableNativeMap data = new WritableNativeMap();
-            for (String key : appRestrictions.keySet()){
-                data.putString(key, appRestrictions.getString(key));
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            if (isMDMSupported()) {
+                promise.resolve(createConfigurationMap(getRestrictionsSnapshot()));
+            } else {
+                // Return empty configuration instead of rejecting when MDM is not available
+                promise.resolve(Arguments.createMap());
             }
-            promise.resolve(data);
-        } else {
-            // Return empty configuration instead of rejecting when MDM is not available
-            promise.resolve(Arguments.createMap());
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfiguration", start);
+        }
+    }
+
+    // Resolves {notModified: true, hash} without the configuration when it still matches the hash the caller last saw
+    @ReactMethod
+    public void getConfigurationIfChanged(String hash, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            RestrictionsSnapshot appRestrictions = getRestrictionsSnapshot();
+            boolean notModified = appRestrictions.getContentHash().equals(hash);
+            WritableMap result = createConditionalResult(appRestrictions, notModified);
+            if (!notModified) {
+                result.putMap("value", createConfigurationMap(appRestrictions));
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            MDMLog.e("getConfigurationIfChanged failed", e);
+            promise.reject("ERROR", e.getMessage());
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfigurationIfChanged", start);
+        }
+    }
+
+    private WritableMap createConditionalResult(RestrictionsSnapshot appRestrictions, boolean notModified) {
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("notModified", notModified);
+        result.putString("hash", appRestrictions.getContentHash());
+        return result;
+    }
+
+    // Synchronous reads of the cached snapshot. On the New Architecture these are
+    // invoked directly over JSI; on the old bridge they block the JS thread briefly.
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getConfigurationSync() {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            if (!isMDMSupported()) {
+                return Arguments.createMap();
+            }
+            return createConfigurationMap(getRestrictionsSnapshot());
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfigurationSync", start);
+        }
+    }
+
+    // Key projections: only the requested subset is converted and sent over the bridge
+    @ReactMethod
+    public void getConfigurationKeys(ReadableArray keys, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            if (!isMDMSupported()) {
+                promise.resolve(Arguments.createMap());
+                return;
+            }
+
+            List<String> requestedKeys = new ArrayList<String>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                if (keys.getType(i) == ReadableType.String) {
+                    requestedKeys.add(keys.getString(i));
+                }
+            }
+            promise.resolve(RestrictionsConverter.toWritableMap(getRestrictionsSnapshot(), requestedKeys));
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfigurationKeys", start);
+        }
+    }
+
+    @ReactMethod
+    public void getConfigurationByPrefix(String prefix, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            if (!isMDMSupported()) {
+                promise.resolve(Arguments.createMap());
+                return;
+            }
+
+            RestrictionsSnapshot appRestrictions = getRestrictionsSnapshot();
+            promise.resolve(RestrictionsConverter.toWritableMap(appRestrictions,
+                    appRestrictions.keysWithPrefix(prefix != null ? prefix : "")));
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfigurationByPrefix", start);
+        }
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getConfigurationValueSync(String key) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            // Wrapped in a map so every restriction type can be returned through the same signature
+            WritableMap result = Arguments.createMap();
+            RestrictionsSnapshot appRestrictions = getRestrictionsSnapshot();
+            if (key != null && appRestrictions.containsKey(key)) {
+                RestrictionsConverter.putValue(result, key, appRestrictions.get(key));
+            }
+            return result;
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfigurationValueSync", start);
+        }
+    }
+
+    // Resolves with the node at a dot path, parsing JSON string values once per snapshot; null when missing
+    @ReactMethod
+    public void getConfigValue(String path, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            Object node = getRestrictionsSnapshot().getStructuredValues().get(path);
+            promise.resolve(node == StructuredValues.MISSING ? null : RestrictionsConverter.toJsValue(node));
+        } catch (Exception e) {
+            MDMLog.e("getConfigValue failed", e);
+            promise.reject("ERROR", e.getMessage());
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfigValue", start);
         }
     }
 
     @ReactMethod
     public void getDirectConfiguration(final Promise promise) {
-        Log.d(TAG, "=== Direct Android MDM Check ===");
-        WritableMap debugInfo = Arguments.createMap();
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            MDMLog.d("getDirectConfiguration");
+            WritableMap debugInfo = Arguments.createMap();
         
-        RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
-        Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
+            RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
+            RestrictionsSnapshot appRestrictions = getRestrictionsSnapshot();
         
-        // Essential MDM configuration keys to check
-        String[] potentialKeys = {
-            "com.google.android.work.configuration.managed",
-            "AccountName", "AccountDomain", "AccountEmail",
-            "IntuneComplianceStatus", "IntuneEnrollmentStatus", 
-            "IntuneMAMUPN", "ManagedConfiguration"
-        };
+            // Essential MDM configuration keys to check
+            String[] potentialKeys = {
+                "com.google.android.work.configuration.managed",
+                "AccountName", "AccountDomain", "AccountEmail",
+                "IntuneComplianceStatus", "IntuneEnrollmentStatus", 
+                "IntuneMAMUPN", "ManagedConfiguration"
+            };
         
-        boolean foundMDMConfig = false;
-        WritableMap mdmData = Arguments.createMap();
+            boolean foundMDMConfig = false;
+            WritableMap mdmData = Arguments.createMap();
         
-        for (String key : potentialKeys) {
-            if (appRestrictions.containsKey(key)) {
-                String value = appRestrictions.getString(key);
-                if (value != null) {
-                    Log.d(TAG, "✅ Found MDM key: " + key);
-                    mdmData.putString(key, value);
-                    foundMDMConfig = true;
+            for (String key : potentialKeys) {
+                if (appRestrictions.containsKey(key)) {
+                    Object value = appRestrictions.get(key);
+                    if (value != null) {
+                        MDMLog.d("mdm key found", "key", key);
+                        RestrictionsConverter.putValue(mdmData, key, value);
+                        foundMDMConfig = true;
+                    }
                 }
             }
-        }
         
-        // Look for essential keys only
-        Set<String> allKeys = appRestrictions.keySet();
-        WritableArray relevantKeys = Arguments.createArray();
-        String[] searchTerms = {"managed", "intune", "mdm", "policy", "account"};
+            // Look for essential keys only
+            Set<String> allKeys = appRestrictions.keySet();
+            WritableArray relevantKeys = Arguments.createArray();
+            KeyMatcher keyMatcher = directKeyMatcher;
         
-        for (String key : allKeys) {
-            for (String term : searchTerms) {
-                if (key.toLowerCase().contains(term.toLowerCase())) {
+            for (String key : allKeys) {
+                if (keyMatcher.matches(key)) {
                     WritableMap keyData = Arguments.createMap();
                     keyData.putString("key", key);
-                    keyData.putString("value", appRestrictions.getString(key, "<null>"));
+                    putRelevantValue(keyData, appRestrictions.get(key));
                     relevantKeys.pushMap(keyData);
-                    break;
                 }
             }
-        }
         
-        debugInfo.putInt("TotalRestrictionsKeys", allKeys.size());
-        debugInfo.putArray("RelevantKeys", relevantKeys);
-        debugInfo.putBoolean("FoundMDMConfig", foundMDMConfig);
-        debugInfo.putBoolean("HasRestrictionsManager", restrictionsManager != null);
+            debugInfo.putInt("TotalRestrictionsKeys", allKeys.size());
+            debugInfo.putArray("RelevantKeys", relevantKeys);
+            debugInfo.putBoolean("FoundMDMConfig", foundMDMConfig);
+            debugInfo.putBoolean("HasRestrictionsManager", restrictionsManager != null);
         
-        if (foundMDMConfig) {
-            mdmData.putMap("_debugInfo", debugInfo);
-            Log.d(TAG, "✅ MDM config found");
-            promise.resolve(mdmData);
-        } else {
-            Log.d(TAG, "❌ No MDM config found");
-            promise.resolve(debugInfo);
+            if (foundMDMConfig) {
+                mdmData.putMap("_debugInfo", debugInfo);
+                MDMLog.d("getDirectConfiguration result", "relevantKeys", relevantKeys.size(), "foundMDMConfig", true);
+                promise.resolve(mdmData);
+            } else {
+                MDMLog.d("getDirectConfiguration result", "relevantKeys", relevantKeys.size(), "foundMDMConfig", false);
+                promise.resolve(debugInfo);
+            }
+        } finally {
+            MDMMetrics.getInstance().endCall("getDirectConfiguration", start);
         }
     }
 
     @ReactMethod
     public void checkMDMCapabilities(final Promise promise) {
-        Log.d(TAG, "=== Android MDM Capabilities Check ===");
+        BackgroundTaskRunner.getInstance().submit("checkMDMCapabilities", promise, new BackgroundTaskRunner.Task() {
+            @Override
+            public Object run() {
+                return buildMDMCapabilities(getRestrictionsSnapshot(), getManagementFacts());
+            }
+        });
+    }
+
+    private WritableMap buildMDMCapabilities(RestrictionsSnapshot appRestrictions, ManagementFacts facts) {
+        MDMLog.d("checkMDMCapabilities");
         WritableMap essential = Arguments.createMap();
         
         Context context = getReactApplicationContext();
@@ -265,33 +524,29 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
         boolean isDeviceOwner = false;
         
         try {
-            PackageManager pm = context.getPackageManager();
-            ApplicationInfo appInfo = pm.getApplicationInfo(context.getPackageName(), 0);
+            ApplicationInfo appInfo = facts.getApplicationInfo();
             
             // Check if app is in work profile
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
                 isWorkProfile = (appInfo.flags & ApplicationInfo.FLAG_INSTALLED) != 0 && 
-                               devicePolicyManager != null && 
-                               !devicePolicyManager.getActiveAdmins().isEmpty();
+                               facts.getActiveAdminCount() > 0;
             }
             
             // Check if device is managed
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-                isDeviceOwner = devicePolicyManager != null && devicePolicyManager.isDeviceOwnerApp(context.getPackageName());
-            }
+            isDeviceOwner = facts.isDeviceOwner();
             
             // App from Intune typically: work profile or device management
             downloadedFromIntune = isWorkProfile || isDeviceOwner || 
-                                 (restrictionsManager != null && restrictionsManager.getApplicationRestrictions().size() > 0);
+                                 (restrictionsManager != null && appRestrictions.size() > 0);
             
             essential.putBoolean("DownloadedFromIntune", downloadedFromIntune);
             essential.putBoolean("IsWorkProfile", isWorkProfile);
             essential.putBoolean("IsDeviceOwner", isDeviceOwner);
             
-            Log.d(TAG, "📱 Download source - WorkProfile: " + isWorkProfile + ", DeviceOwner: " + isDeviceOwner + ", FromIntune: " + downloadedFromIntune);
+            MDMLog.d("download source", "workProfile", isWorkProfile, "deviceOwner", isDeviceOwner, "fromIntune", downloadedFromIntune);
             
         } catch (Exception e) {
-            Log.e(TAG, "Error checking app source: " + e.getMessage());
+            MDMLog.e("checkMDMCapabilities app source failed", e);
             essential.putBoolean("DownloadedFromIntune", false);
             essential.putBoolean("IsWorkProfile", false);
             essential.putBoolean("IsDeviceOwner", false);
@@ -299,8 +554,7 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
         
         // Try to extract company domain from package info
         try {
-            PackageManager pm = context.getPackageManager();
-            PackageInfo packageInfo = pm.getPackageInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+            PackageInfo packageInfo = facts.getPackageInfo();
             if (packageInfo.applicationInfo.metaData != null) {
                 String companyDomain = packageInfo.applicationInfo.metaData.getString("CompanyDomain");
                 if (companyDomain != null) {
@@ -308,25 +562,32 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
                 }
             }
         } catch (Exception e) {
-            Log.d(TAG, "No company domain in metadata");
+            MDMLog.d("no company domain in metadata");
         }
         
-        Log.d(TAG, "✅ Essential capabilities checked");
-        promise.resolve(essential);
+        MDMLog.d("checkMDMCapabilities done");
+        return essential;
     }
 
     @ReactMethod
     public void getEnrollmentStatus(final Promise promise) {
-        Log.d(TAG, "=== Checking Android Device Enrollment Status ===");
+        BackgroundTaskRunner.getInstance().submit("getEnrollmentStatus", promise, new BackgroundTaskRunner.Task() {
+            @Override
+            public Object run() {
+                return buildEnrollmentStatus(getManagementFacts());
+            }
+        });
+    }
+
+    private WritableMap buildEnrollmentStatus(ManagementFacts facts) {
+        MDMLog.d("getEnrollmentStatus");
         WritableMap enrollmentInfo = Arguments.createMap();
         
         Context context = getReactApplicationContext();
-        DevicePolicyManager devicePolicyManager = (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
         
         try {
-            PackageManager pm = context.getPackageManager();
-            PackageInfo packageInfo = pm.getPackageInfo(context.getPackageName(), 0);
-            ApplicationInfo appInfo = pm.getApplicationInfo(context.getPackageName(), 0);
+            PackageInfo packageInfo = facts.getPackageInfo();
+            ApplicationInfo appInfo = packageInfo.applicationInfo;
             
             enrollmentInfo.putString("BundleID", context.getPackageName());
             enrollmentInfo.putString("VersionName", packageInfo.versionName);
@@ -337,16 +598,12 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             boolean hasSystemManagement = false;
             
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                if (devicePolicyManager != null) {
-                    // Check if device has active device admin
-                    List activeAdmins = devicePolicyManager.getActiveAdmins();
-                    hasSystemManagement = activeAdmins != null && !activeAdmins.isEmpty();
-                    
-                    // Check if device is in supervised/kiosk mode
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                        isSupervised = devicePolicyManager.isDeviceOwnerApp(context.getPackageName()) ||
-                                     devicePolicyManager.isProfileOwnerApp(context.getPackageName());
-                    }
+                // Check if device has active device admin
+                hasSystemManagement = facts.getActiveAdminCount() > 0;
+                
+                // Check if device is in supervised/kiosk mode
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                    isSupervised = facts.isDeviceOwner() || facts.isProfileOwner();
                 }
             }
             
@@ -354,7 +611,7 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             enrollmentInfo.putBoolean("HasSystemManagement", hasSystemManagement);
             
             // Check installation source
-            String installerPackage = pm.getInstallerPackageName(context.getPackageName());
+            String installerPackage = facts.getInstallerPackageName();
             boolean isEnterprise = installerPackage != null && 
                                   (installerPackage.contains("work") || 
                                    installerPackage.contains("enterprise") ||
@@ -372,25 +629,34 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
                     // Try to detect work profile context
                     isInWorkProfile = (appInfo.flags & ApplicationInfo.FLAG_INSTALLED) != 0 && hasSystemManagement;
                 } catch (Exception e) {
-                    Log.d(TAG, "Could not determine work profile status");
+                    MDMLog.d("work profile status unknown");
                 }
             }
             
             enrollmentInfo.putBoolean("IsInWorkProfile", isInWorkProfile);
             
-            Log.d(TAG, "Enrollment info: " + enrollmentInfo.toString());
+            MDMLog.d("getEnrollmentStatus result", "supervised", isSupervised, "enterprise", isEnterprise, "workProfile", isInWorkProfile);
             
         } catch (Exception e) {
-            Log.e(TAG, "Error getting enrollment status: " + e.getMessage());
+            MDMLog.e("getEnrollmentStatus failed", e);
             enrollmentInfo.putString("Error", e.getMessage());
         }
         
-        promise.resolve(enrollmentInfo);
+        return enrollmentInfo;
     }
 
     @ReactMethod
     public void forceMDMSync(final Promise promise) {
-        Log.d(TAG, "=== Forcing Android MDM Sync and Deep Analysis ===");
+        BackgroundTaskRunner.getInstance().submit("forceMDMSync", promise, new BackgroundTaskRunner.Task() {
+            @Override
+            public Object run() {
+                return buildMDMSyncResult();
+            }
+        });
+    }
+
+    private WritableMap buildMDMSyncResult() {
+        MDMLog.d("forceMDMSync");
         WritableMap syncResult = Arguments.createMap();
         
         Context context = getReactApplicationContext();
@@ -398,16 +664,16 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
         
         try {
             // Get package details
-            PackageManager pm = context.getPackageManager();
-            PackageInfo packageInfo = pm.getPackageInfo(context.getPackageName(), 0);
+            ManagementFacts facts = getManagementFacts();
+            PackageInfo packageInfo = facts.getPackageInfo();
             
             syncResult.putString("ActualBundleID", context.getPackageName());
             syncResult.putString("VersionName", packageInfo.versionName);
             syncResult.putInt("VersionCode", packageInfo.versionCode);
-            syncResult.putString("DisplayName", pm.getApplicationLabel(packageInfo.applicationInfo).toString());
+            syncResult.putString("DisplayName", facts.getDisplayName());
             
             // Force refresh restrictions
-            Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
+            RestrictionsSnapshot appRestrictions = RestrictionsSnapshotCache.getInstance().refresh(context);
             
             // Check for bundle-specific configuration
             String bundleSpecificKey = "managed." + context.getPackageName();
@@ -425,10 +691,10 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             
             for (String key : targetKeys) {
                 if (appRestrictions.containsKey(key)) {
-                    String value = appRestrictions.getString(key);
+                    Object value = appRestrictions.get(key);
                     if (value != null) {
-                        postRefreshFindings.putString(key, value);
-                        Log.d(TAG, "POST-REFRESH: Found " + key + " = " + value);
+                        RestrictionsConverter.putValue(postRefreshFindings, key, value);
+                        MDMLog.d("post-refresh key found", "key", key);
                     }
                 }
             }
@@ -439,14 +705,7 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             WritableMap domainData = Arguments.createMap();
             domainData.putString("domain", context.getPackageName());
             
-            WritableMap restrictionsData = Arguments.createMap();
-            for (String key : appRestrictions.keySet()) {
-                String value = appRestrictions.getString(key);
-                if (value != null) {
-                    restrictionsData.putString(key, value);
-                }
-            }
-            domainData.putMap("data", restrictionsData);
+            domainData.putMap("data", RestrictionsConverter.toWritableMap(appRestrictions));
             appDomainData.pushMap(domainData);
             syncResult.putArray("AppDomainData", appDomainData);
             
@@ -457,68 +716,106 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
                 syncResult.putString("RefreshAttempt", "NO_RESTRICTIONS_MANAGER");
             }
             
-            Log.d(TAG, "Force sync result: " + syncResult.toString());
+            MDMLog.d("forceMDMSync result", "keys", appRestrictions.size(), "bundleSpecificConfig", hasBundleSpecificConfig);
             
         } catch (Exception e) {
-            Log.e(TAG, "Error in force sync: " + e.getMessage());
+            MDMLog.e("forceMDMSync failed", e);
             syncResult.putString("RefreshAttempt", "FAILED: " + e.getMessage());
         }
         
-        promise.resolve(syncResult);
+        return syncResult;
     }
 
     @ReactMethod
     public void isAppLockingAllowed(final Promise promise) {
-        promise.resolve(isLockStatePermitted());
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            promise.resolve(isLockStatePermitted());
+        } finally {
+            MDMMetrics.getInstance().endCall("isAppLockingAllowed", start);
+        }
     }
 
     @ReactMethod
     public void isAppLocked(final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
         try {
-          promise.resolve(isLockState());
-        } catch (Exception e) {
-          promise.reject(e);
+            try {
+              // Tracked state, kept current by lock/unlock, resumes and device-admin callbacks
+              promise.resolve(LockTaskTracker.getInstance().isLocked(getReactApplicationContext()));
+            } catch (Exception e) {
+              promise.reject(e);
+            }
+        } finally {
+            MDMMetrics.getInstance().endCall("isAppLocked", start);
         }
     }
 
     @ReactMethod
     public void lockApp(final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
         try {
-            boolean locked = enableLockState();
-            if (locked) {
-              promise.resolve(locked);
-            } else {
-              promise.reject(new Error("Unable to lock app"));
-            }
-        } catch (Exception e) {
-            promise.reject(e);
+            changeLockTaskState(true, promise);
+        } finally {
+            MDMMetrics.getInstance().endCall("lockApp", start);
         }
     }
 
     @ReactMethod
     public void unlockApp(final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
         try {
-            boolean unlocked = disableLockState();
-            if (unlocked) {
-              promise.resolve(unlocked);
-            } else {
-              promise.reject(new Error("Unable to unlock app"));
-            }
-        } catch (Exception e) {
-            promise.reject(e);
+            changeLockTaskState(false, promise);
+        } finally {
+            MDMMetrics.getInstance().endCall("unlockApp", start);
+        }
+    }
+
+    // startLockTask/stopLockTask must run on the UI thread. The promise resolves once the
+    // transition has been requested, not when it took effect: the system can still refuse it
+    // or wait for the user, so the resulting state is reported through APP_LOCK_STATUS_CHANGED.
+    private void changeLockTaskState(final boolean lock, final Promise promise) {
+        final Context context = getReactApplicationContext();
+        final Activity activity = getCurrentActivity();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP || activity == null
+                || LockTaskTracker.getInstance().isLocked(context) == lock) {
+            promise.reject(new Error(lock ? "Unable to lock app" : "Unable to unlock app"));
+            return;
         }
+
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (lock) {
+                        activity.startLockTask();
+                    } else {
+                        activity.stopLockTask();
+                    }
+                } catch (Exception e) {
+                    promise.reject(e);
+                    return;
+                }
+                promise.resolve(true);
+                LockTaskTracker.getInstance().confirm(context);
+            }
+        });
     }
 
     // Life cycle methods
     @Override
     public void initialize() {
         getReactApplicationContext().addLifecycleEventListener(this);
+        LockTaskTracker.getInstance().addListener(lockTaskListener);
         maybeRegisterReceiver();
+        RestrictionsPrefetchWorker.restore(getReactApplicationContext());
     }
 
     @Override
     public void onHostResume() {
         maybeRegisterReceiver();
+        // Lock task can be entered or left while the activity was in the background
+        LockTaskTracker.getInstance().refresh(getReactApplicationContext());
     }
 
     @Override
@@ -532,206 +829,388 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
         getReactApplicationContext().removeLifecycleEventListener(this);
     }
 
+    @Override
+    public void onCatalystInstanceDestroy() {
+        // React reloads tear the context down without necessarily calling onHostDestroy
+        maybeUnregisterReceiver();
+        LockTaskTracker.getInstance().removeListener(lockTaskListener);
+        subscriptions.clear();
+        getReactApplicationContext().removeLifecycleEventListener(this);
+    }
+
     // SIMPLIFIED METHODS - New simplified interface
 
     @ReactMethod
     public void getDeviceInfo(final Promise promise) {
-        Log.d(TAG, "=== Getting Android Device Management Info ===");
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            resolveDeviceInfo(promise);
+        } finally {
+            MDMMetrics.getInstance().endCall("getDeviceInfo", start);
+        }
+    }
+
+    private void resolveDeviceInfo(final Promise promise) {
+        try {
+            promise.resolve(buildDeviceInfo(getRestrictionsSnapshot(), getManagementFacts()));
+        } catch (Exception e) {
+            MDMLog.e("getDeviceInfo failed", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    private WritableMap buildDeviceInfo(RestrictionsSnapshot appRestrictions, ManagementFacts facts) {
+        MDMLog.d("getDeviceInfo");
         WritableMap deviceInfo = Arguments.createMap();
         
         Context context = getReactApplicationContext();
         
-        try {
-            // Get bundle information
-            String bundleID = context.getPackageName();
-            deviceInfo.putString("bundleID", bundleID);
-            
-            // Check if managed
-            boolean isManaged = checkIfManagedDevice();
-            deviceInfo.putBoolean("isManaged", isManaged);
-            
-            // Check framework support
-            boolean hasManagedConfigFramework = checkManagedConfigFramework();
-            boolean hasDeviceManagementFramework = checkDeviceManagementFramework();
-            deviceInfo.putBoolean("hasManagedConfigFramework", hasManagedConfigFramework);
-            deviceInfo.putBoolean("hasDeviceManagementFramework", hasDeviceManagementFramework);
-            
-            // Android doesn't have provisioning profiles like iOS
-            deviceInfo.putBoolean("hasProvisioningProfile", false);
-            
-            // Check if downloaded from Intune
-            boolean downloadedFromIntune = checkIfDownloadedFromIntune();
-            deviceInfo.putBoolean("downloadedFromIntune", downloadedFromIntune);
-            
-            // Get organization information
-            WritableMap orgInfo = getOrganizationInformation();
-            deviceInfo.putMap("organizationInfo", orgInfo);
-            
-            // Extract company domain
-            String companyDomain = extractCompanyDomain();
-            if (companyDomain != null) {
-                deviceInfo.putString("companyDomain", companyDomain);
-            } else {
-                deviceInfo.putNull("companyDomain");
+        // Get bundle information
+        String bundleID = context.getPackageName();
+        deviceInfo.putString("bundleID", bundleID);
+        
+        // Derived once per snapshot, so repeated calls only read cached values
+        IdentityFields identity = appRestrictions.getIdentity();
+        ManagedVerdict verdict = appRestrictions.getManagedVerdict(facts);
+
+        // Check if managed
+        boolean isManaged = verdict.isManaged();
+        deviceInfo.putBoolean("isManaged", isManaged);
+        
+        // Check framework support
+        boolean hasManagedConfigFramework = checkManagedConfigFramework();
+        boolean hasDeviceManagementFramework = checkDeviceManagementFramework();
+        deviceInfo.putBoolean("hasManagedConfigFramework", hasManagedConfigFramework);
+        deviceInfo.putBoolean("hasDeviceManagementFramework", hasDeviceManagementFramework);
+        
+        // Android doesn't have provisioning profiles like iOS
+        deviceInfo.putBoolean("hasProvisioningProfile", false);
+        
+        // Check if downloaded from Intune
+        boolean downloadedFromIntune = verdict.isDownloadedFromIntune();
+        deviceInfo.putBoolean("downloadedFromIntune", downloadedFromIntune);
+        
+        // Get organization information
+        WritableMap orgInfo = RestrictionsConverter.toWritableMap(appRestrictions);
+        deviceInfo.putMap("organizationInfo", orgInfo);
+        
+        // Company domain, user principal and display name
+        putIdentity(deviceInfo, identity);
+
+        // True while the configuration comes from the persisted snapshot and is still being validated
+        deviceInfo.putBoolean("configurationStale", appRestrictions.isStale());
+        deviceInfo.putString("configurationHash", appRestrictions.getContentHash());
+        
+        MDMLog.d("getDeviceInfo result", "isManaged", isManaged, "downloadedFromIntune", downloadedFromIntune, "hasCompanyDomain", identity.getCompanyDomain() != null);
+        return deviceInfo;
+    }
+
+    // One round-trip for the startup calls; every section reads the same snapshot and facts
+    @ReactMethod
+    public void getAll(ReadableArray sections, ReadableMap options, final Promise promise) {
+        final List<String> requested = new ArrayList<String>();
+        if (sections == null || sections.size() == 0) {
+            requested.addAll(ALL_SECTIONS);
+        } else {
+            for (int i = 0; i < sections.size(); i++) {
+                String section = sections.getType(i) == ReadableType.String ? sections.getString(i) : null;
+                if (!ALL_SECTIONS.contains(section)) {
+                    promise.reject("INVALID_SECTION", "Unknown section: " + section);
+                    return;
+                }
+                requested.add(section);
+            }
+        }
+
+        BackgroundTaskRunner.getInstance().submit("getAll", options, promise, new BackgroundTaskRunner.Task() {
+            @Override
+            public Object run() {
+                return buildAll(requested);
+            }
+        });
+    }
+
+    private WritableMap buildAll(List<String> sections) {
+        RestrictionsSnapshot appRestrictions = getRestrictionsSnapshot();
+        ManagementFacts facts = getManagementFacts();
+
+        WritableMap result = Arguments.createMap();
+        for (String section : sections) {
+            if (result.hasKey(section)) {
+                continue;
+            }
+            if (SECTION_DEVICE_INFO.equals(section)) {
+                result.putMap(section, buildDeviceInfo(appRestrictions, facts));
+            } else if (SECTION_ENROLLMENT_STATUS.equals(section)) {
+                result.putMap(section, buildEnrollmentStatus(facts));
+            } else if (SECTION_CAPABILITIES.equals(section)) {
+                result.putMap(section, buildMDMCapabilities(appRestrictions, facts));
+            } else if (SECTION_ORGANIZATION_INFO.equals(section)) {
+                result.putMap(section, RestrictionsConverter.toWritableMap(appRestrictions));
             }
-            
-            Log.d(TAG, "Android device info result: " + deviceInfo.toString());
-            promise.resolve(deviceInfo);
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting device info: " + e.getMessage());
-            promise.reject("ERROR", e.getMessage());
         }
+        return result;
     }
 
     @ReactMethod
     public void getOrganizationInfo(final Promise promise) {
-        WritableMap orgInfo = getOrganizationInformation();
-        promise.resolve(orgInfo);
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            WritableMap orgInfo = getOrganizationInformation();
+            promise.resolve(orgInfo);
+        } finally {
+            MDMMetrics.getInstance().endCall("getOrganizationInfo", start);
+        }
     }
 
     @ReactMethod
     public void refreshConfiguration(final Promise promise) {
-        Log.d(TAG, "=== Refreshing Android Configuration ===");
-        
-        // Force refresh of restrictions
+        long start = MDMMetrics.getInstance().startCall();
         try {
-            RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
-            if (restrictionsManager != null) {
-                // Trigger a configuration refresh by re-checking restrictions
-                Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-                Log.d(TAG, "Refreshed restrictions, found " + appRestrictions.size() + " keys");
-            }
+            MDMLog.d("refreshConfiguration");
+        
+            // Force refresh of restrictions
+            try {
+                // Replace the cached snapshot with a fresh read of the restrictions
+                RestrictionsSnapshot appRestrictions = RestrictionsSnapshotCache.getInstance().refresh(getReactApplicationContext());
+                MDMLog.d("restrictions refreshed", "keys", appRestrictions.size());
             
-            // Return fresh device info after refresh
-            getDeviceInfo(promise);
+                // Return fresh device info after refresh
+                resolveDeviceInfo(promise);
             
+            } catch (Exception e) {
+                MDMLog.e("refreshConfiguration failed", e);
+                promise.reject("ERROR", e.getMessage());
+            }
+        } finally {
+            MDMMetrics.getInstance().endCall("refreshConfiguration", start);
+        }
+    }
+
+    // Like refreshConfiguration, but the device info is only sent when the configuration no longer matches the hash
+    @ReactMethod
+    public void refreshConfigurationIfChanged(String hash, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            RestrictionsSnapshot appRestrictions = RestrictionsSnapshotCache.getInstance().refresh(getReactApplicationContext());
+            boolean notModified = appRestrictions.getContentHash().equals(hash);
+            WritableMap result = createConditionalResult(appRestrictions, notModified);
+            if (!notModified) {
+                result.putMap("value", buildDeviceInfo(appRestrictions, getManagementFacts()));
+            }
+            promise.resolve(result);
         } catch (Exception e) {
-            Log.e(TAG, "Error refreshing configuration: " + e.getMessage());
+            MDMLog.e("refreshConfigurationIfChanged failed", e);
             promise.reject("ERROR", e.getMessage());
+        } finally {
+            MDMMetrics.getInstance().endCall("refreshConfigurationIfChanged", start);
         }
     }
 
-    // Helper method to check if device is managed
-    private boolean checkIfManagedDevice() {
-        boolean isManaged = false;
-        
-        // 1. Check RestrictionsManager for app restrictions (most reliable)
-        RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
-        if (restrictionsManager != null) {
-            Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-            if (appRestrictions.size() > 0) {
-                Log.d(TAG, "✅ Device is managed via RestrictionsManager (has " + appRestrictions.size() + " restrictions)");
-                isManaged = true;
+    @ReactMethod
+    public void getConfigurationCacheStats(final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            RestrictionsSnapshotCache cache = RestrictionsSnapshotCache.getInstance();
+            WritableMap stats = Arguments.createMap();
+            stats.putDouble("hits", cache.getHits());
+            stats.putDouble("misses", cache.getMisses());
+            stats.putDouble("refreshes", cache.getRefreshes());
+            stats.putDouble("version", cache.getVersion());
+            stats.putBoolean("stale", cache.isStale());
+            promise.resolve(stats);
+        } finally {
+            MDMMetrics.getInstance().endCall("getConfigurationCacheStats", start);
+        }
+    }
+
+    @ReactMethod
+    public void setConfigChangeEventMode(String mode, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            if (!CHANGE_EVENT_MODE_FULL.equals(mode) && !CHANGE_EVENT_MODE_DELTA.equals(mode)) {
+                promise.reject("INVALID_MODE", "Unknown config change event mode: " + mode);
+                return;
             }
+            changeEventMode = mode;
+            promise.resolve(mode);
+        } finally {
+            MDMMetrics.getInstance().endCall("setConfigChangeEventMode", start);
         }
-        
-        // 2. Check if device has active device administrators (device-level management)
-        DevicePolicyManager devicePolicyManager = (DevicePolicyManager) getReactApplicationContext().getSystemService(Context.DEVICE_POLICY_SERVICE);
-        if (devicePolicyManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            try {
-                List activeAdmins = devicePolicyManager.getActiveAdmins();
-                if (activeAdmins != null && !activeAdmins.isEmpty()) {
-                    Log.d(TAG, "✅ Device has active administrators (device-level management)");
-                    
-                    // Only consider managed if THIS app is managed, not just the device
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                        boolean isDeviceOwner = devicePolicyManager.isDeviceOwnerApp(getReactApplicationContext().getPackageName());
-                        boolean isProfileOwner = devicePolicyManager.isProfileOwnerApp(getReactApplicationContext().getPackageName());
-                        
-                        if (isDeviceOwner || isProfileOwner) {
-                            Log.d(TAG, "✅ THIS app is device/profile owner - managed");
-                            isManaged = true;
-                        } else {
-                            Log.d(TAG, "❌ Device has admins but THIS app is not managed");
-                        }
-                    }
+    }
+
+    // Changes to keys matching any of the patterns are emitted as APP_CONFIG_SUBSCRIPTION with this ID
+    @ReactMethod
+    public void subscribeToConfigChanges(String subscriptionId, ReadableArray patterns, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            if (subscriptionId == null || subscriptionId.isEmpty()) {
+                promise.reject("INVALID_SUBSCRIPTION", "A subscription ID is required");
+                return;
+            }
+
+            List<String> keyPatterns = new ArrayList<String>();
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.getType(i) == ReadableType.String) {
+                    keyPatterns.add(patterns.getString(i));
                 }
-            } catch (Exception e) {
-                Log.d(TAG, "Could not check active admins: " + e.getMessage());
             }
+            KeyPatternSet patternSet = KeyPatternSet.compile(keyPatterns);
+            if (patternSet.isEmpty()) {
+                promise.reject("INVALID_PATTERNS", "At least one key pattern is required");
+                return;
+            }
+
+            // Subscribing again with the same ID replaces its patterns
+            subscriptions.put(subscriptionId, patternSet);
+            promise.resolve(subscriptionId);
+        } finally {
+            MDMMetrics.getInstance().endCall("subscribeToConfigChanges", start);
         }
-        
-        // 3. Check if downloaded from Intune (only if we have restrictions or ownership)
-        if (!isManaged && checkIfDownloadedFromIntune()) {
-            Log.d(TAG, "✅ Downloaded from Intune distribution");
-            isManaged = true;
+    }
+
+    @ReactMethod
+    public void unsubscribeFromConfigChanges(String subscriptionId, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            promise.resolve(subscriptionId != null && subscriptions.remove(subscriptionId) != null);
+        } finally {
+            MDMMetrics.getInstance().endCall("unsubscribeFromConfigChanges", start);
         }
-        
-        Log.d(TAG, "Final managed status: " + (isManaged ? "MANAGED" : "NOT MANAGED"));
-        return isManaged;
     }
 
-    // Helper method to check if downloaded from Intune
-    private boolean checkIfDownloadedFromIntune() {
-        Context context = getReactApplicationContext();
-        
+    @ReactMethod
+    public void addKeySearchTerms(ReadableArray terms, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
         try {
-            PackageManager pm = context.getPackageManager();
-            String installerPackage = pm.getInstallerPackageName(context.getPackageName());
-            
-            Log.d(TAG, "Installer package: " + (installerPackage != null ? installerPackage : "null"));
-            
-            // 1. Check installer package - be very specific
-            if (installerPackage != null) {
-                // Only consider specific Intune/enterprise installers
-                if (installerPackage.equals("com.microsoft.windowsintune.companyportal") ||
-                    installerPackage.equals("com.microsoft.intune") ||
-                    installerPackage.contains("enterprisestore") ||
-                    installerPackage.contains("workprofile")) {
-                    Log.d(TAG, "✅ Downloaded from Intune via installer: " + installerPackage);
-                    return true;
-                }
-                
-                // If installed from Play Store or unknown/null, likely not from Intune
-                if (installerPackage.equals("com.android.vending") || 
-                    installerPackage.equals("com.google.android.packageinstaller")) {
-                    Log.d(TAG, "❌ Downloaded from Play Store/Package Installer, not Intune");
-                    return false;
+            List<String> extraTerms = new ArrayList<String>();
+            for (int i = 0; i < terms.size(); i++) {
+                if (terms.getType(i) == ReadableType.String) {
+                    extraTerms.add(terms.getString(i));
                 }
             }
-            
-            // 2. If installer is null (sideloaded APK), check for other Intune indicators
-            if (installerPackage == null) {
-                Log.d(TAG, "❌ No installer package (sideloaded APK), not from Intune");
-                
-                // Only consider Intune if there are actual MDM restrictions
-                RestrictionsManager restrictionsManager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
-                if (restrictionsManager != null) {
-                    Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-                    if (appRestrictions.size() > 0) {
-                        Log.d(TAG, "✅ Sideloaded but has MDM restrictions - could be Intune managed");
-                        return true;
-                    }
-                }
-                
-                return false;
+
+            // Recompiled once here, so scanning keys never has to
+            synchronized (RNMobileDeviceManagerModule.class) {
+                directKeyMatcher = directKeyMatcher.with(extraTerms);
+                diagnosticsKeyMatcher = diagnosticsKeyMatcher.with(extraTerms);
             }
-            
-            // 3. Check if device is device owner or profile owner (high confidence Intune)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                DevicePolicyManager devicePolicyManager = (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
-                if (devicePolicyManager != null) {
-                    try {
-                        boolean isDeviceOwner = devicePolicyManager.isDeviceOwnerApp(context.getPackageName());
-                        boolean isProfileOwner = devicePolicyManager.isProfileOwnerApp(context.getPackageName());
-                        
-                        if (isDeviceOwner || isProfileOwner) {
-                            Log.d(TAG, "✅ App is device/profile owner - from Intune");
-                            return true;
-                        }
-                    } catch (Exception e) {
-                        Log.d(TAG, "Could not check device/profile owner: " + e.getMessage());
-                    }
-                }
+
+            WritableArray activeTerms = Arguments.createArray();
+            for (String term : directKeyMatcher.getTerms()) {
+                activeTerms.pushString(term);
             }
-            
+            promise.resolve(activeTerms);
+        } finally {
+            MDMMetrics.getInstance().endCall("addKeySearchTerms", start);
+        }
+    }
+
+    @ReactMethod
+    public void setLogLevel(String level, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            int priority = MDMLog.parseLevel(level);
+            if (priority < 0) {
+                promise.reject("INVALID_LEVEL", "Unknown log level: " + level);
+                return;
+            }
+            MDMLog.setLevel(priority);
+            promise.resolve(MDMLog.levelName(priority));
+        } finally {
+            MDMMetrics.getInstance().endCall("setLogLevel", start);
+        }
+    }
+
+    @ReactMethod
+    public void setChangeCoalescingWindow(int windowMs, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            RestrictionsChangeMonitor.getInstance().setCoalescingWindow(windowMs);
+            promise.resolve((double) RestrictionsChangeMonitor.getInstance().getCoalescingWindow());
+        } finally {
+            MDMMetrics.getInstance().endCall("setChangeCoalescingWindow", start);
+        }
+    }
+
+    @ReactMethod
+    public void enableBackgroundPrefetch(int intervalMinutes, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            promise.resolve((double) RestrictionsPrefetchWorker.enable(getReactApplicationContext(), intervalMinutes));
         } catch (Exception e) {
-            Log.e(TAG, "Error checking Intune distribution: " + e.getMessage());
+            // WorkManager throws when the app disabled its default initializer without providing one
+            MDMLog.e("enableBackgroundPrefetch failed", e);
+            promise.reject("PREFETCH_ERROR", e.getMessage());
+        } finally {
+            MDMMetrics.getInstance().endCall("enableBackgroundPrefetch", start);
+        }
+    }
+
+    @ReactMethod
+    public void disableBackgroundPrefetch(final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            RestrictionsPrefetchWorker.disable(getReactApplicationContext());
+            promise.resolve(true);
+        } catch (Exception e) {
+            MDMLog.e("disableBackgroundPrefetch failed", e);
+            promise.reject("PREFETCH_ERROR", e.getMessage());
+        } finally {
+            MDMMetrics.getInstance().endCall("disableBackgroundPrefetch", start);
+        }
+    }
+
+    @ReactMethod
+    public void cancelBackgroundTask(String callId, final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            // Only the call started with this callId rejects with E_CANCELLED
+            promise.resolve(BackgroundTaskRunner.getInstance().cancel(callId));
+        } finally {
+            MDMMetrics.getInstance().endCall("cancelBackgroundTask", start);
+        }
+    }
+
+    @ReactMethod
+    public void getChangeMonitorStats(final Promise promise) {
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            RestrictionsChangeMonitor monitor = RestrictionsChangeMonitor.getInstance();
+            WritableMap stats = Arguments.createMap();
+            stats.putInt("activeListeners", monitor.getActiveListeners());
+            stats.putBoolean("receiverRegistered", monitor.isReceiverRegistered());
+            stats.putDouble("registrations", monitor.getRegistrations());
+            stats.putDouble("unregistrations", monitor.getUnregistrations());
+            stats.putDouble("broadcastsReceived", monitor.getBroadcastsReceived());
+            stats.putDouble("broadcastsCoalesced", monitor.getBroadcastsCoalesced());
+            stats.putDouble("deliveries", monitor.getDeliveries());
+            stats.putDouble("coalescingWindowMs", monitor.getCoalescingWindow());
+            stats.putDouble("eventsEmitted", monitor.getEventsEmitted());
+            stats.putDouble("redundantDeliveries", monitor.getRedundantDeliveries());
+            stats.putDouble("maxEventsPerDelivery", monitor.getMaxEventsPerDelivery());
+            promise.resolve(stats);
+        } finally {
+            MDMMetrics.getInstance().endCall("getChangeMonitorStats", start);
+        }
+    }
+
+    // Not timed itself, so a reset read does not leave an entry behind
+    @ReactMethod
+    public void getMetrics(boolean reset, final Promise promise) {
+        WritableMap metrics = MDMMetrics.getInstance().toWritableMap(reset);
+        // A gauge, so it is not affected by reset
+        metrics.putDouble("backgroundTasksInFlight", BackgroundTaskRunner.getInstance().getInFlightCount());
+        promise.resolve(metrics);
+    }
+
+    // Helper method to put a relevant key's value, keeping the "<null>" placeholder for missing values
+    private void putRelevantValue(WritableMap keyData, Object value) {
+        if (value == null) {
+            keyData.putString("value", "<null>");
+        } else {
+            RestrictionsConverter.putValue(keyData, "value", value);
         }
-        
-        Log.d(TAG, "❌ Not downloaded from Intune");
-        return false;
     }
 
     // Helper method to check managed config framework
@@ -752,112 +1231,53 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
 
     // Helper method to get organization information
     private WritableMap getOrganizationInformation() {
-        WritableMap orgInfo = Arguments.createMap();
-        
-        // 1. Try RestrictionsManager first
-        RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
-        if (restrictionsManager != null) {
-            Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-            
-            // Convert Bundle to WritableMap
-            for (String key : appRestrictions.keySet()) {
-                String value = appRestrictions.getString(key);
-                if (value != null) {
-                    orgInfo.putString(key, value);
-                }
-            }
-        }
-        
-        return orgInfo;
+        // Convert the cached RestrictionsManager snapshot to a typed WritableMap
+        return RestrictionsConverter.toWritableMap(getRestrictionsSnapshot());
     }
 
-    // Helper method to extract company domain directly from restrictions
-    private String extractCompanyDomain() {
-        RestrictionsManager restrictionsManager = (RestrictionsManager) getReactApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
-        if (restrictionsManager != null) {
-            Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-            
-            // 1. Direct domain from configuration
-            String domain = appRestrictions.getString("AccountDomain");
-            if (domain != null && !domain.isEmpty()) {
-                return domain;
-            }
-            
-            // 2. Extract from email
-            String email = appRestrictions.getString("AccountEmail");
-            if (email != null && email.contains("@")) {
-                String[] parts = email.split("@");
-                if (parts.length > 1) {
-                    return parts[1];
-                }
-            }
-            
-            // 3. Extract from Intune UPN
-            String upn = appRestrictions.getString("IntuneMAMUPN");
-            if (upn != null && upn.contains("@")) {
-                String[] parts = upn.split("@");
-                if (parts.length > 1) {
-                    return parts[1];
-                }
+    // Streams the diagnostics report to a file in the cache dir; only the path and a summary cross the bridge
+    @ReactMethod
+    public void exportDiagnostics(ReadableMap options, final Promise promise) {
+        final int maxBytes = options != null && options.hasKey("maxBytes")
+                ? (int) options.getDouble("maxBytes") : DiagnosticsExporter.DEFAULT_MAX_BYTES;
+        final int maxValueLength = options != null && options.hasKey("maxValueLength")
+                ? (int) options.getDouble("maxValueLength") : DiagnosticsExporter.DEFAULT_MAX_VALUE_LENGTH;
+
+        BackgroundTaskRunner.getInstance().submit("exportDiagnostics", options, promise, new BackgroundTaskRunner.Task() {
+            @Override
+            public Object run() throws Exception {
+                return new DiagnosticsExporter(maxBytes, maxValueLength)
+                        .export(getReactApplicationContext(), getRestrictionsSnapshot(), getManagementFacts());
             }
-        }
-        
-        return null;
+        });
     }
 
-    // Helper method to extract company domain (legacy - kept for compatibility)
-    private String extractCompanyDomainFromOrgInfo(WritableMap orgInfo) {
-        // 1. Direct domain from configuration
-        if (orgInfo.hasKey("AccountDomain")) {
-            String domain = orgInfo.getString("AccountDomain");
-            if (domain != null && !domain.isEmpty()) {
-                return domain;
-            }
-        }
-        
-        // 2. Extract from email
-        if (orgInfo.hasKey("AccountEmail")) {
-            String email = orgInfo.getString("AccountEmail");
-            if (email != null && email.contains("@")) {
-                String[] parts = email.split("@");
-                if (parts.length > 1) {
-                    return parts[1];
-                }
-            }
-        }
-        
-        // 3. Extract from Intune UPN
-        if (orgInfo.hasKey("IntuneMAMUPN")) {
-            String upn = orgInfo.getString("IntuneMAMUPN");
-            if (upn != null && upn.contains("@")) {
-                String[] parts = upn.split("@");
-                if (parts.length > 1) {
-                    return parts[1];
-                }
+    @ReactMethod
+    public void getDetailedDiagnostics(ReadableMap options, final Promise promise) {
+        BackgroundTaskRunner.getInstance().submit("getDetailedDiagnostics", options, promise, new BackgroundTaskRunner.Task() {
+            @Override
+            public Object run() throws Exception {
+                return buildDetailedDiagnostics(getRestrictionsSnapshot(), getManagementFacts());
             }
-        }
-        
-        return null;
+        });
     }
 
-    @ReactMethod
-    public void getDetailedDiagnostics(final Promise promise) {
-        Log.d(TAG, "=== Getting Android Detailed Diagnostics ===");
+    // Every section reads the same snapshot, so a change landing mid-build cannot mix two configurations
+    private WritableMap buildDetailedDiagnostics(RestrictionsSnapshot appRestrictions, ManagementFacts facts) throws Exception {
+        MDMLog.d("getDetailedDiagnostics");
         WritableMap diagnostics = Arguments.createMap();
         
         Context context = getReactApplicationContext();
         
         try {
             // 1. Bundle Information
-            PackageManager pm = context.getPackageManager();
-            PackageInfo packageInfo = pm.getPackageInfo(context.getPackageName(), 0);
-            ApplicationInfo appInfo = pm.getApplicationInfo(context.getPackageName(), 0);
+            PackageInfo packageInfo = facts.getPackageInfo();
             
             WritableMap bundleDetails = Arguments.createMap();
             bundleDetails.putString("bundleID", context.getPackageName());
             bundleDetails.putString("version", String.valueOf(packageInfo.versionCode));
             bundleDetails.putString("shortVersion", packageInfo.versionName != null ? packageInfo.versionName : "Unknown");
-            bundleDetails.putString("displayName", pm.getApplicationLabel(appInfo).toString());
+            bundleDetails.putString("displayName", facts.getDisplayName());
             bundleDetails.putString("teamID", "N/A (Android)");
             bundleDetails.putBoolean("supportsAutoConfig", checkManagedConfigFramework());
             
@@ -865,7 +1285,7 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             
             // 2. Provisioning Profile Analysis (Android equivalent - installer package)
             WritableMap provisioningInfo = Arguments.createMap();
-            String installerPackage = pm.getInstallerPackageName(context.getPackageName());
+            String installerPackage = facts.getInstallerPackageName();
             
             boolean isEnterprise = installerPackage != null && 
                                   (installerPackage.contains("enterprise") || 
@@ -889,8 +1309,6 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             WritableMap userDefaultsInfo = Arguments.createMap();
             
             if (restrictionsManager != null) {
-                Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
-                
                 // Check all potential MDM keys
                 String[] mdmKeys = {
                     "com.google.android.work.configuration.managed",
@@ -902,13 +1320,13 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
                 WritableMap mdmKeysFound = Arguments.createMap();
                 for (String key : mdmKeys) {
                     if (appRestrictions.containsKey(key)) {
-                        String value = appRestrictions.getString(key);
+                        Object value = appRestrictions.get(key);
                         if (value != null) {
-                            mdmKeysFound.putString(key, value);
-                            Log.d(TAG, "✅ Found MDM key: " + key + " = " + value);
+                            RestrictionsConverter.putValue(mdmKeysFound, key, value);
+                            MDMLog.d("mdm key found", "key", key);
                         }
                     } else {
-                        Log.d(TAG, "❌ Missing MDM key: " + key);
+                        MDMLog.d("mdm key missing", "key", key);
                     }
                 }
                 
@@ -917,17 +1335,14 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
                 
                 // Get all restriction keys for analysis
                 WritableArray relevantKeys = Arguments.createArray();
-                String[] searchTerms = {"managed", "intune", "config", "policy", "account"};
+                KeyMatcher keyMatcher = diagnosticsKeyMatcher;
                 
                 for (String key : appRestrictions.keySet()) {
-                    for (String term : searchTerms) {
-                        if (key.toLowerCase().contains(term.toLowerCase())) {
-                            WritableMap keyData = Arguments.createMap();
-                            keyData.putString("key", key);
-                            keyData.putString("value", appRestrictions.getString(key, "<null>"));
-                            relevantKeys.pushMap(keyData);
-                            break;
-                        }
+                    if (keyMatcher.matches(key)) {
+                        WritableMap keyData = Arguments.createMap();
+                        keyData.putString("key", key);
+                        putRelevantValue(keyData, appRestrictions.get(key));
+                        relevantKeys.pushMap(keyData);
                     }
                 }
                 
@@ -945,25 +1360,17 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             // 4. ManagedAppConfig Analysis (Android equivalent - RestrictionsManager)
             WritableMap managedAppConfigInfo = Arguments.createMap();
             if (restrictionsManager != null) {
-                Bundle appRestrictions = restrictionsManager.getApplicationRestrictions();
                 if (appRestrictions.size() > 0) {
                     managedAppConfigInfo.putString("status", "Available");
                     managedAppConfigInfo.putInt("configCount", appRestrictions.size());
                     
-                    WritableMap config = Arguments.createMap();
-                    for (String key : appRestrictions.keySet()) {
-                        String value = appRestrictions.getString(key);
-                        if (value != null) {
-                            config.putString(key, value);
-                        }
-                    }
-                    managedAppConfigInfo.putMap("config", config);
+                    managedAppConfigInfo.putMap("config", RestrictionsConverter.toWritableMap(appRestrictions));
                     
-                    Log.d(TAG, "✅ Android RestrictionsManager found: " + appRestrictions.size() + " keys");
+                    MDMLog.d("managed app config", "keys", appRestrictions.size());
                 } else {
                     managedAppConfigInfo.putString("status", "Not available");
                     managedAppConfigInfo.putInt("configCount", 0);
-                    Log.d(TAG, "❌ Android RestrictionsManager not available");
+                    MDMLog.d("managed app config", "keys", 0);
                 }
             } else {
                 managedAppConfigInfo.putString("status", "RestrictionsManager not available");
@@ -974,38 +1381,33 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             
             // 5. Device Enrollment Detection
             WritableMap enrollmentInfo = Arguments.createMap();
-            DevicePolicyManager devicePolicyManager = (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
             
             boolean deviceEnrolled = false;
             WritableArray foundEnrollmentKeys = Arguments.createArray();
             
-            if (devicePolicyManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                try {
-                    List activeAdmins = devicePolicyManager.getActiveAdmins();
-                    if (activeAdmins != null && !activeAdmins.isEmpty()) {
-                        deviceEnrolled = true;
-                        WritableMap enrollmentData = Arguments.createMap();
-                        enrollmentData.putString("key", "ActiveAdmins");
-                        enrollmentData.putString("value", "Found " + activeAdmins.size() + " active admins");
-                        foundEnrollmentKeys.pushMap(enrollmentData);
-                        Log.d(TAG, "✅ Enrollment indicator: ActiveAdmins = " + activeAdmins.size());
-                    }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                int activeAdminCount = facts.getActiveAdminCount();
+                if (activeAdminCount > 0) {
+                    deviceEnrolled = true;
+                    WritableMap enrollmentData = Arguments.createMap();
+                    enrollmentData.putString("key", "ActiveAdmins");
+                    enrollmentData.putString("value", "Found " + activeAdminCount + " active admins");
+                    foundEnrollmentKeys.pushMap(enrollmentData);
+                    MDMLog.d("enrollment indicator", "activeAdmins", activeAdminCount);
+                }
+                
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                    boolean isDeviceOwner = facts.isDeviceOwner();
+                    boolean isProfileOwner = facts.isProfileOwner();
                     
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                        boolean isDeviceOwner = devicePolicyManager.isDeviceOwnerApp(context.getPackageName());
-                        boolean isProfileOwner = devicePolicyManager.isProfileOwnerApp(context.getPackageName());
-                        
-                        if (isDeviceOwner || isProfileOwner) {
-                            deviceEnrolled = true;
-                            WritableMap ownerData = Arguments.createMap();
-                            ownerData.putString("key", "AppOwnership");
-                            ownerData.putString("value", "DeviceOwner: " + isDeviceOwner + ", ProfileOwner: " + isProfileOwner);
-                            foundEnrollmentKeys.pushMap(ownerData);
-                            Log.d(TAG, "✅ App ownership: DeviceOwner=" + isDeviceOwner + ", ProfileOwner=" + isProfileOwner);
-                        }
+                    if (isDeviceOwner || isProfileOwner) {
+                        deviceEnrolled = true;
+                        WritableMap ownerData = Arguments.createMap();
+                        ownerData.putString("key", "AppOwnership");
+                        ownerData.putString("value", "DeviceOwner: " + isDeviceOwner + ", ProfileOwner: " + isProfileOwner);
+                        foundEnrollmentKeys.pushMap(ownerData);
+                        MDMLog.d("app ownership", "deviceOwner", isDeviceOwner, "profileOwner", isProfileOwner);
                     }
-                } catch (Exception e) {
-                    Log.d(TAG, "Could not check device policy: " + e.getMessage());
                 }
             }
             
@@ -1018,16 +1420,15 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             WritableMap detectionSteps = Arguments.createMap();
             
             // Step 1: RestrictionsManager (equivalent to ManagedAppConfig)
-            boolean step1 = restrictionsManager != null && restrictionsManager.getApplicationRestrictions().size() > 0;
+            boolean step1 = restrictionsManager != null && appRestrictions.size() > 0;
             detectionSteps.putBoolean("step1_managedAppConfig", step1);
             
             // Step 2: Restrictions with MDM keys (equivalent to UserDefaults MDM)
             boolean step2 = false;
             if (restrictionsManager != null) {
-                Bundle restrictions = restrictionsManager.getApplicationRestrictions();
                 String[] mdmKeys = {"AccountName", "AccountDomain", "IntuneMAMUPN", "IntuneComplianceStatus"};
                 for (String key : mdmKeys) {
-                    if (restrictions.containsKey(key)) {
+                    if (appRestrictions.containsKey(key)) {
                         step2 = true;
                         break;
                     }
@@ -1046,17 +1447,14 @@ public class RNMobileDeviceManagerModule extends ReactContextBaseJavaModule impl
             
             diagnostics.putMap("detectionSteps", detectionSteps);
             
-            Log.d(TAG, "=== Android Detection Steps Summary ===");
-            Log.d(TAG, "Step 1 (RestrictionsManager): " + (step1 ? "PASS" : "FAIL"));
-            Log.d(TAG, "Step 2 (Restrictions MDM): " + (step2 ? "PASS" : "FAIL"));
-            Log.d(TAG, "Step 3 (Enrollment + AutoConfig): " + (step3 ? "PASS" : "FAIL"));
-            Log.d(TAG, "Final Decision: " + (isManaged ? "MANAGED" : "NOT MANAGED"));
+            MDMLog.d("detection steps", "step1", step1, "step2", step2, "step3", step3);
+            MDMLog.d("managed verdict", "isManaged", isManaged);
             
-            promise.resolve(diagnostics);
+            return diagnostics;
             
         } catch (Exception e) {
-            Log.e(TAG, "Error getting detailed diagnostics: " + e.getMessage());
-            promise.reject("ERROR", e.getMessage());
+            MDMLog.e("getDetailedDiagnostics failed", e);
+            throw e;
         }
     }
 }
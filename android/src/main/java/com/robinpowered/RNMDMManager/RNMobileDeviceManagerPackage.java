@@ -1,24 +1,61 @@
 package com.robinpowered.RNMDMManager;
 
-import java.util.Arrays;
+import android.content.Context;
+
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.facebook.react.ReactPackage;
+import com.facebook.react.TurboReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.facebook.react.uimanager.ViewManager;
-import com.facebook.react.bridge.JavaScriptModule;
 
-public class RNMobileDeviceManagerPackage implements ReactPackage {
+// Modules are created lazily, on first use from JS, together with their change receiver
+public class RNMobileDeviceManagerPackage extends TurboReactPackage {
+    public RNMobileDeviceManagerPackage() {
+    }
+
+    // Opt-in: starts reading the managed configuration in the background right away,
+    // so the first getDeviceInfo() picks up work that is already in progress
+    public RNMobileDeviceManagerPackage(Context context) {
+        prewarm(context);
+    }
+
+    // Can also be called directly, e.g. from Application.onCreate()
+    public static void prewarm(Context context) {
+        StartupPrewarm.start(context);
+    }
+
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        return Arrays.<NativeModule> asList(new RNMobileDeviceManagerModule(reactContext));
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (RNMobileDeviceManagerModule.MODULE_NAME.equals(name)) {
+            return new RNMobileDeviceManagerModule(reactContext);
+        }
+        return null;
     }
 
-    // Deprecated from RN 0.47
-    public List<Class<? extends JavaScriptModule>> createJSModules() {
-        return Collections.emptyList();
+    @Override
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return new ReactModuleInfoProvider() {
+            @Override
+            public Map<String, ReactModuleInfo> getReactModuleInfos() {
+                Map<String, ReactModuleInfo> moduleInfos = new HashMap<String, ReactModuleInfo>();
+                moduleInfos.put(RNMobileDeviceManagerModule.MODULE_NAME, new ReactModuleInfo(
+                        RNMobileDeviceManagerModule.MODULE_NAME,
+                        RNMobileDeviceManagerModule.class.getName(),
+                        false, // canOverrideExistingModule
+                        false, // needsEagerInit
+                        true, // hasConstants
+                        false, // isCxxModule
+                        false // isTurboModule, served through the interop layer on the New Architecture
+                ));
+                return moduleInfos;
+            }
+        };
     }
 
     @Override
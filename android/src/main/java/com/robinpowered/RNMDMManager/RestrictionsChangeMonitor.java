@@ -0,0 +1,278 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-scoped owner of the {@code ACTION_APPLICATION_RESTRICTIONS_CHANGED} receiver.
+ *
+ * Every module instance (one per React context) acquires the monitor with its own
+ * listener. A single receiver is registered on the application context while at
+ * least one listener is attached, so resume/pause cycles and React reloads can
+ * never stack up receivers or keep a stale React context alive. Every acquire
+ * re-reads the restrictions on the monitor thread, so changes pushed while a
+ * listener was detached are delivered when it comes back.
+ *
+ * Broadcasts are received on a dedicated background thread and coalesced: a burst
+ * arriving within the coalescing window results in a single restrictions read and
+ * a single delivery carrying the final state. A delivery whose restrictions turn
+ * out to be identical to the last delivered ones is dropped, so listeners never
+ * see the same configuration twice.
+ */
+final class RestrictionsChangeMonitor {
+    interface Listener {
+        void onRestrictionsChanged(RestrictionsSnapshot snapshot, RestrictionsDelta delta);
+    }
+
+    private static final RestrictionsChangeMonitor INSTANCE = new RestrictionsChangeMonitor();
+
+    static final long DEFAULT_COALESCING_WINDOW_MS = 250;
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+    private final AtomicLong broadcastsReceived = new AtomicLong();
+    private final AtomicLong broadcastsCoalesced = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong redundantDeliveries = new AtomicLong();
+    private final AtomicLong eventsEmitted = new AtomicLong();
+    private final AtomicLong maxEventsPerDelivery = new AtomicLong();
+
+    private final Runnable deliverChanges = new Runnable() {
+        @Override
+        public void run() {
+            deliveryPending = false;
+            handleRestrictionsChanged(false);
+        }
+    };
+
+    private final Runnable catchUp = new Runnable() {
+        @Override
+        public void run() {
+            handleRestrictionsChanged(false);
+        }
+    };
+
+    private final Runnable validateRestored = new Runnable() {
+        @Override
+        public void run() {
+            handleRestrictionsChanged(true);
+        }
+    };
+
+    private volatile long coalescingWindowMs = DEFAULT_COALESCING_WINDOW_MS;
+
+    // Only touched on the monitor thread
+    private boolean deliveryPending;
+
+    private Handler handler;
+    private Context applicationContext;
+    private BroadcastReceiver receiver;
+    private RestrictionsSnapshot lastDelivered;
+    private long registrations;
+    private long unregistrations;
+
+    // Package-private so tests can run against a monitor of their own
+    RestrictionsChangeMonitor() {
+    }
+
+    static RestrictionsChangeMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    void acquire(Context context, Listener listener) {
+        // The first delivery is diffed against what JS can already read. Loaded before taking
+        // the monitor lock, since a cold-start cache miss requests validation, which takes it too.
+        RestrictionsSnapshot current = RestrictionsSnapshotCache.getInstance().get(context);
+        synchronized (this) {
+            attach(context, listener, current);
+        }
+    }
+
+    // Must be called while holding the lock
+    private void attach(Context context, Listener listener, RestrictionsSnapshot current) {
+        if (!listeners.addIfAbsent(listener)) {
+            return;
+        }
+
+        if (receiver == null) {
+            applicationContext = context.getApplicationContext();
+            receiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    scheduleDelivery();
+                }
+            };
+            applicationContext.registerReceiver(receiver, new IntentFilter(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED), null, getHandler());
+            registrations++;
+        }
+
+        if (lastDelivered == null) {
+            lastDelivered = current;
+        }
+        // The broadcast is not sticky, so a push that arrived while this listener was away
+        // (e.g. while the app was paused) is only seen by reading the restrictions again.
+        // Unchanged restrictions keep the cached snapshot and deliver nothing.
+        getHandler().post(catchUp);
+    }
+
+    synchronized void release(Listener listener) {
+        if (!listeners.remove(listener)) {
+            return;
+        }
+
+        if (listeners.isEmpty() && receiver != null) {
+            applicationContext.unregisterReceiver(receiver);
+            receiver = null;
+            unregistrations++;
+        }
+    }
+
+    // Checks a snapshot restored from disk against the live restrictions on the monitor thread
+    void requestValidation(Context context) {
+        synchronized (this) {
+            if (applicationContext == null) {
+                applicationContext = context.getApplicationContext();
+            }
+        }
+        getHandler().post(validateRestored);
+    }
+
+    void setCoalescingWindow(long windowMs) {
+        coalescingWindowMs = Math.max(0, windowMs);
+    }
+
+    long getCoalescingWindow() {
+        return coalescingWindowMs;
+    }
+
+    void recordEventEmitted() {
+        eventsEmitted.incrementAndGet();
+    }
+
+    int getActiveListeners() {
+        return listeners.size();
+    }
+
+    synchronized boolean isReceiverRegistered() {
+        return receiver != null;
+    }
+
+    synchronized long getRegistrations() {
+        return registrations;
+    }
+
+    synchronized long getUnregistrations() {
+        return unregistrations;
+    }
+
+    long getBroadcastsReceived() {
+        return broadcastsReceived.get();
+    }
+
+    long getBroadcastsCoalesced() {
+        return broadcastsCoalesced.get();
+    }
+
+    long getDeliveries() {
+        return deliveries.get();
+    }
+
+    long getEventsEmitted() {
+        return eventsEmitted.get();
+    }
+
+    long getRedundantDeliveries() {
+        return redundantDeliveries.get();
+    }
+
+    long getMaxEventsPerDelivery() {
+        return maxEventsPerDelivery.get();
+    }
+
+    Looper getLooper() {
+        return getHandler().getLooper();
+    }
+
+    // Ends the monitor thread of a monitor created by a test; the shared instance keeps its thread
+    synchronized void quit() {
+        if (handler != null) {
+            handler.getLooper().quitSafely();
+            handler = null;
+        }
+    }
+
+    // The monitor thread lives for the rest of the process once a receiver has been registered
+    private synchronized Handler getHandler() {
+        if (handler == null) {
+            HandlerThread thread = new HandlerThread("RNMDM-RestrictionsMonitor");
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        return handler;
+    }
+
+    // Runs on the monitor thread
+    private void scheduleDelivery() {
+        broadcastsReceived.incrementAndGet();
+        MDMMetrics.getInstance().countBroadcast();
+
+        if (deliveryPending) {
+            broadcastsCoalesced.incrementAndGet();
+            return;
+        }
+
+        deliveryPending = true;
+        getHandler().postDelayed(deliverChanges, coalescingWindowMs);
+    }
+
+    private void handleRestrictionsChanged(boolean onlyIfChanged) {
+        deliveries.incrementAndGet();
+
+        Context context;
+        RestrictionsSnapshot previous;
+        synchronized (this) {
+            context = applicationContext;
+            previous = lastDelivered;
+        }
+
+        // Read the restrictions and diff them against what listeners last saw, once for every React context
+        RestrictionsSnapshotCache cache = RestrictionsSnapshotCache.getInstance();
+        RestrictionsSnapshot restored = onlyIfChanged ? cache.peek() : null;
+        if (restored != null && !restored.isStale()) {
+            // Already confirmed by an earlier read
+            restored = null;
+        }
+        RestrictionsSnapshot snapshot = cache.refresh(context);
+        synchronized (this) {
+            lastDelivered = snapshot;
+        }
+        // JS has been served the restored snapshot, so that is what the live restrictions are compared with
+        if (restored != null && restored.getContentHash().equals(snapshot.getContentHash())) {
+            return;
+        }
+        RestrictionsDelta delta = RestrictionsDelta.between(restored != null ? restored : previous, snapshot);
+        if (delta.isEmpty()) {
+            redundantDeliveries.incrementAndGet();
+            return;
+        }
+
+        long emittedBefore = eventsEmitted.get();
+        for (Listener listener : listeners) {
+            listener.onRestrictionsChanged(snapshot, delta);
+        }
+
+        // Listeners emit synchronously, so this is what the delivery produced
+        long emitted = eventsEmitted.get() - emittedBefore;
+        long max = maxEventsPerDelivery.get();
+        while (emitted > max && !maxEventsPerDelivery.compareAndSet(max, emitted)) {
+            max = maxEventsPerDelivery.get();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Bundle;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+
+/**
+ * Converts managed restrictions into typed JS values in a single pass.
+ *
+ * Handles every restriction type Android can deliver: bool, integer, string,
+ * choice, hidden, multi-select (String[]), bundle and bundle_array (Parcelable[]).
+ * Parsed JSON documents from {@link StructuredValues} are converted the same way.
+ */
+final class RestrictionsConverter {
+    private RestrictionsConverter() {
+    }
+
+    static WritableMap toWritableMap(RestrictionsSnapshot snapshot) {
+        WritableMap map = Arguments.createMap();
+        for (String key : snapshot.keySet()) {
+            putValue(map, key, snapshot.get(key));
+        }
+        return map;
+    }
+
+    // Only the requested keys that exist are converted
+    static WritableMap toWritableMap(RestrictionsSnapshot snapshot, Iterable<String> keys) {
+        WritableMap map = Arguments.createMap();
+        for (String key : keys) {
+            if (key != null && snapshot.containsKey(key)) {
+                putValue(map, key, snapshot.get(key));
+            }
+        }
+        return map;
+    }
+
+    @SuppressWarnings("deprecation")
+    static WritableMap toWritableMap(Bundle bundle) {
+        WritableMap map = Arguments.createMap();
+        for (String key : bundle.keySet()) {
+            putValue(map, key, bundle.get(key));
+        }
+        return map;
+    }
+
+    static WritableArray toWritableArray(Object[] values) {
+        WritableArray array = Arguments.createArray();
+        for (Object value : values) {
+            pushValue(array, value);
+        }
+        return array;
+    }
+
+    // A single node as a value a promise can resolve with
+    static Object toJsValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer) {
+            return value;
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Bundle) {
+            return toWritableMap((Bundle) value);
+        } else if (value instanceof JSONObject) {
+            return toWritableMap((JSONObject) value);
+        } else if (value instanceof Object[]) {
+            return toWritableArray((Object[]) value);
+        } else if (value instanceof JSONArray) {
+            return toWritableArray((JSONArray) value);
+        } else if (value instanceof int[]) {
+            return toWritableArray((int[]) value);
+        }
+        return value.toString();
+    }
+
+    static void putValue(WritableMap map, String key, Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            map.putNull(key);
+        } else if (value instanceof String) {
+            map.putString(key, (String) value);
+        } else if (value instanceof Boolean) {
+            map.putBoolean(key, (Boolean) value);
+        } else if (value instanceof Integer) {
+            map.putInt(key, (Integer) value);
+        } else if (value instanceof Number) {
+            map.putDouble(key, ((Number) value).doubleValue());
+        } else if (value instanceof Bundle) {
+            map.putMap(key, toWritableMap((Bundle) value));
+        } else if (value instanceof JSONObject) {
+            map.putMap(key, toWritableMap((JSONObject) value));
+        } else if (value instanceof Object[]) {
+            map.putArray(key, toWritableArray((Object[]) value));
+        } else if (value instanceof JSONArray) {
+            map.putArray(key, toWritableArray((JSONArray) value));
+        } else if (value instanceof int[]) {
+            map.putArray(key, toWritableArray((int[]) value));
+        } else {
+            map.putString(key, value.toString());
+        }
+    }
+
+    static void pushValue(WritableArray array, Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            array.pushNull();
+        } else if (value instanceof String) {
+            array.pushString((String) value);
+        } else if (value instanceof Boolean) {
+            array.pushBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            array.pushInt((Integer) value);
+        } else if (value instanceof Number) {
+            array.pushDouble(((Number) value).doubleValue());
+        } else if (value instanceof Bundle) {
+            array.pushMap(toWritableMap((Bundle) value));
+        } else if (value instanceof JSONObject) {
+            array.pushMap(toWritableMap((JSONObject) value));
+        } else if (value instanceof Object[]) {
+            array.pushArray(toWritableArray((Object[]) value));
+        } else if (value instanceof JSONArray) {
+            array.pushArray(toWritableArray((JSONArray) value));
+        } else if (value instanceof int[]) {
+            array.pushArray(toWritableArray((int[]) value));
+        } else {
+            array.pushString(value.toString());
+        }
+    }
+
+    private static WritableMap toWritableMap(JSONObject object) {
+        WritableMap map = Arguments.createMap();
+        Iterator<String> keys = object.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            putValue(map, key, object.opt(key));
+        }
+        return map;
+    }
+
+    private static WritableArray toWritableArray(JSONArray values) {
+        WritableArray array = Arguments.createArray();
+        for (int i = 0; i < values.length(); i++) {
+            pushValue(array, values.opt(i));
+        }
+        return array;
+    }
+
+    private static WritableArray toWritableArray(int[] values) {
+        WritableArray array = Arguments.createArray();
+        for (int value : values) {
+            array.pushInt(value);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,74 @@
+package com.robinpowered.RNMDMManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keys that were added, removed or changed between two restriction snapshots.
+ */
+final class RestrictionsDelta {
+    private final long previousVersion;
+    private final long version;
+    private final List<String> added;
+    private final List<String> removed;
+    private final List<String> changed;
+
+    private RestrictionsDelta(long previousVersion, long version, List<String> added, List<String> removed, List<String> changed) {
+        this.previousVersion = previousVersion;
+        this.version = version;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    static RestrictionsDelta between(RestrictionsSnapshot previous, RestrictionsSnapshot current) {
+        List<String> added = new ArrayList<String>();
+        List<String> removed = new ArrayList<String>();
+        List<String> changed = new ArrayList<String>();
+
+        // A refresh with identical content returns the same snapshot instance
+        if (previous != current) {
+            for (String key : current.keySet()) {
+                if (previous == null || !previous.containsKey(key)) {
+                    added.add(key);
+                } else if (!RestrictionsSnapshot.valuesEqual(previous.get(key), current.get(key))) {
+                    changed.add(key);
+                }
+            }
+            if (previous != null) {
+                for (String key : previous.keySet()) {
+                    if (!current.containsKey(key)) {
+                        removed.add(key);
+                    }
+                }
+            }
+        }
+
+        return new RestrictionsDelta(previous != null ? previous.getVersion() : 0, current.getVersion(), added, removed, changed);
+    }
+
+    long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    List<String> getAdded() {
+        return added;
+    }
+
+    List<String> getRemoved() {
+        return removed;
+    }
+
+    List<String> getChanged() {
+        return changed;
+    }
+
+    boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
@@ -0,0 +1,147 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional WorkManager job that reads the managed configuration while the app is
+ * in the background, so the next foreground read is served from a warm, persisted
+ * snapshot instead of paying for the binder call and conversion.
+ *
+ * It runs periodically once enabled, and once more whenever the restrictions
+ * change while no module is listening for changes itself. The enabled state is
+ * kept across process restarts; WorkManager keeps the periodic job.
+ */
+public final class RestrictionsPrefetchWorker extends Worker {
+    static final String PERIODIC_WORK = "rnmdm-prefetch-periodic";
+    static final String ON_CHANGE_WORK = "rnmdm-prefetch-on-change";
+
+    private static final String PREFERENCES = "rnmdm-prefetch";
+    private static final String KEY_INTERVAL_MINUTES = "intervalMinutes";
+
+    // Folds a burst of change broadcasts into one run
+    private static final long ON_CHANGE_DELAY_MS = 1000;
+    private static final long WRITE_TIMEOUT_MS = 5000;
+
+    private static BroadcastReceiver changeReceiver;
+
+    public RestrictionsPrefetchWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        long start = MDMMetrics.getInstance().startCall();
+        try {
+            RestrictionsSnapshot snapshot = RestrictionsSnapshotCache.getInstance().refresh(context);
+            // Derive what foreground reads need while we are off the UI thread anyway
+            snapshot.getManagedVerdict(ManagementFacts.get(context));
+            snapshot.keysWithPrefix("");
+
+            // The process may be stopped as soon as the work completes
+            RestrictionsSnapshotStore.awaitPendingWrites(WRITE_TIMEOUT_MS);
+            MDMMetrics.getInstance().endPath("prefetch", start, snapshot.size());
+
+            // A process started just for this job has not registered the change receiver yet
+            restore(context);
+            return Result.success();
+        } catch (Exception e) {
+            MDMLog.w("restrictions prefetch failed", e);
+            return Result.retry();
+        }
+    }
+
+    // Returns the interval actually used; WorkManager does not run periodic work more often than every 15 minutes
+    static long enable(Context context, long intervalMinutes) {
+        long minimum = TimeUnit.MILLISECONDS.toMinutes(PeriodicWorkRequest.MIN_PERIODIC_INTERVAL_MILLIS);
+        long interval = Math.max(intervalMinutes, minimum);
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(RestrictionsPrefetchWorker.class, interval, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(PERIODIC_WORK, ExistingPeriodicWorkPolicy.REPLACE, request);
+
+        getPreferences(context).edit().putLong(KEY_INTERVAL_MINUTES, interval).apply();
+        registerChangeReceiver(context);
+        MDMLog.d("prefetch enabled", "intervalMinutes", interval);
+        return interval;
+    }
+
+    static void disable(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.cancelUniqueWork(PERIODIC_WORK);
+        workManager.cancelUniqueWork(ON_CHANGE_WORK);
+
+        getPreferences(context).edit().remove(KEY_INTERVAL_MINUTES).apply();
+        unregisterChangeReceiver(context);
+        MDMLog.d("prefetch disabled");
+    }
+
+    // Re-registers the change receiver in a new process when prefetch was left enabled
+    static void restore(Context context) {
+        if (isEnabled(context)) {
+            registerChangeReceiver(context);
+        }
+    }
+
+    static boolean isEnabled(Context context) {
+        return getIntervalMinutes(context) > 0;
+    }
+
+    static long getIntervalMinutes(Context context) {
+        return getPreferences(context).getLong(KEY_INTERVAL_MINUTES, 0);
+    }
+
+    private static synchronized void registerChangeReceiver(Context context) {
+        if (changeReceiver != null) {
+            return;
+        }
+
+        changeReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                // While a module is listening, the change monitor already refreshes the snapshot
+                if (RestrictionsChangeMonitor.getInstance().isReceiverRegistered()) {
+                    return;
+                }
+                MDMMetrics.getInstance().countBroadcast();
+                enqueueOnChange(context);
+            }
+        };
+        context.getApplicationContext().registerReceiver(changeReceiver, new IntentFilter(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED));
+    }
+
+    private static synchronized void unregisterChangeReceiver(Context context) {
+        if (changeReceiver == null) {
+            return;
+        }
+        context.getApplicationContext().unregisterReceiver(changeReceiver);
+        changeReceiver = null;
+    }
+
+    private static void enqueueOnChange(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(RestrictionsPrefetchWorker.class)
+                .setInitialDelay(ON_CHANGE_DELAY_MS, TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(ON_CHANGE_WORK, ExistingWorkPolicy.KEEP, request);
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,204 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Bundle;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, versioned copy of the managed app restrictions as returned by
+ * {@link android.content.RestrictionsManager#getApplicationRestrictions()}.
+ *
+ * The backing bundle is a private copy and is never handed out, so a snapshot
+ * can be shared freely between threads and React contexts. A stale snapshot was
+ * restored from disk and has not yet been checked against the live restrictions.
+ */
+final class RestrictionsSnapshot {
+    private final long version;
+    private final long capturedAt;
+    private final Bundle restrictions;
+    private final Set<String> keys;
+    private final boolean stale;
+    private final IdentityFields identity;
+
+    // Built on first prefix lookup
+    private volatile String[] sortedKeys;
+
+    // Computed on first conditional read
+    private volatile String contentHash;
+
+    // Created on first path lookup, holds the parsed JSON values
+    private volatile StructuredValues structuredValues;
+
+    // Re-evaluated only when ManagementFacts is invalidated
+    private volatile ManagedVerdict managedVerdict;
+
+    RestrictionsSnapshot(long version, Bundle restrictions, long capturedAt) {
+        this(version, restrictions, capturedAt, false);
+    }
+
+    RestrictionsSnapshot(long version, Bundle restrictions, long capturedAt, boolean stale) {
+        this.version = version;
+        this.capturedAt = capturedAt;
+        this.stale = stale;
+        this.restrictions = restrictions != null ? new Bundle(restrictions) : new Bundle();
+        this.keys = Collections.unmodifiableSet(this.restrictions.keySet());
+        this.identity = IdentityFields.derive(this);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    long getCapturedAt() {
+        return capturedAt;
+    }
+
+    boolean isStale() {
+        return stale;
+    }
+
+    IdentityFields getIdentity() {
+        return identity;
+    }
+
+    // Equal content always yields the same hash, including across restarts
+    String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            hash = ContentHash.of(restrictions);
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    StructuredValues getStructuredValues() {
+        StructuredValues values = structuredValues;
+        if (values == null) {
+            synchronized (this) {
+                values = structuredValues;
+                if (values == null) {
+                    values = new StructuredValues(this);
+                    structuredValues = values;
+                }
+            }
+        }
+        return values;
+    }
+
+    ManagedVerdict getManagedVerdict(ManagementFacts facts) {
+        ManagedVerdict verdict = managedVerdict;
+        if (verdict == null || !verdict.isFor(facts)) {
+            verdict = ManagedVerdict.evaluate(this, facts);
+            managedVerdict = verdict;
+        }
+        return verdict;
+    }
+
+    int size() {
+        return restrictions.size();
+    }
+
+    boolean isEmpty() {
+        return restrictions.isEmpty();
+    }
+
+    Set<String> keySet() {
+        return keys;
+    }
+
+    // Binary searches the sorted keys, so the cost grows with the number of matches
+    List<String> keysWithPrefix(String prefix) {
+        String[] keys = getSortedKeys();
+        int start = Arrays.binarySearch(keys, prefix);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        int end = start;
+        while (end < keys.length && keys[end].startsWith(prefix)) {
+            end++;
+        }
+        return Arrays.asList(keys).subList(start, end);
+    }
+
+    boolean containsKey(String key) {
+        return restrictions.containsKey(key);
+    }
+
+    String getString(String key) {
+        return restrictions.getString(key);
+    }
+
+    String getString(String key, String defaultValue) {
+        return restrictions.getString(key, defaultValue);
+    }
+
+    @SuppressWarnings("deprecation")
+    Object get(String key) {
+        return restrictions.get(key);
+    }
+
+    private String[] getSortedKeys() {
+        String[] keys = sortedKeys;
+        if (keys == null) {
+            keys = this.keys.toArray(new String[0]);
+            Arrays.sort(keys);
+            sortedKeys = keys;
+        }
+        return keys;
+    }
+
+    boolean hasSameContent(Bundle other) {
+        return bundlesEqual(restrictions, other != null ? other : new Bundle());
+    }
+
+    static boolean valuesEqual(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof Bundle && b instanceof Bundle) {
+            return bundlesEqual((Bundle) a, (Bundle) b);
+        }
+        if (a instanceof Object[] && b instanceof Object[]) {
+            Object[] left = (Object[]) a;
+            Object[] right = (Object[]) b;
+            if (left.length != right.length) {
+                return false;
+            }
+            for (int i = 0; i < left.length; i++) {
+                if (!valuesEqual(left[i], right[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof int[] && b instanceof int[]) {
+            return Arrays.equals((int[]) a, (int[]) b);
+        }
+        if (a instanceof long[] && b instanceof long[]) {
+            return Arrays.equals((long[]) a, (long[]) b);
+        }
+        if (a instanceof boolean[] && b instanceof boolean[]) {
+            return Arrays.equals((boolean[]) a, (boolean[]) b);
+        }
+        return a.equals(b);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean bundlesEqual(Bundle a, Bundle b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (String key : a.keySet()) {
+            if (!b.containsKey(key) || !valuesEqual(a.get(key), b.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
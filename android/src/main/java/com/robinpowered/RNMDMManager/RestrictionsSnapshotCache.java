@@ -0,0 +1,152 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.content.RestrictionsManager;
+import android.os.Build;
+import android.os.Bundle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of the current {@link RestrictionsSnapshot}.
+ *
+ * The snapshot is read from {@link RestrictionsManager} once and then served from
+ * memory to every module instance. It is only replaced by {@link #refresh(Context)},
+ * which is called when {@code ACTION_APPLICATION_RESTRICTIONS_CHANGED} arrives or
+ * when JS explicitly asks for a refresh.
+ *
+ * Every live snapshot is also persisted. On a cold start the persisted snapshot is
+ * served immediately, marked stale, while the change monitor validates it against
+ * {@link RestrictionsManager} in the background.
+ */
+final class RestrictionsSnapshotCache {
+    private static final RestrictionsSnapshotCache INSTANCE = new RestrictionsSnapshotCache();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    private volatile RestrictionsSnapshot current;
+    private long lastVersion;
+
+    private RestrictionsSnapshotCache() {
+    }
+
+    static RestrictionsSnapshotCache getInstance() {
+        return INSTANCE;
+    }
+
+    RestrictionsSnapshot get(Context context) {
+        RestrictionsSnapshot snapshot = current;
+        if (snapshot != null) {
+            hits.incrementAndGet();
+            return snapshot;
+        }
+
+        synchronized (this) {
+            snapshot = current;
+            if (snapshot != null) {
+                hits.incrementAndGet();
+                return snapshot;
+            }
+
+            misses.incrementAndGet();
+            snapshot = RestrictionsSnapshotStore.load(context);
+            if (snapshot != null) {
+                // Keep versions increasing across restarts, so JS never sees one repeat
+                lastVersion = Math.max(lastVersion, snapshot.getVersion());
+                current = snapshot;
+                RestrictionsChangeMonitor.getInstance().requestValidation(context);
+                return snapshot;
+            }
+
+            snapshot = load(context);
+            current = snapshot;
+            RestrictionsSnapshotStore.saveAsync(context, snapshot);
+            return snapshot;
+        }
+    }
+
+    RestrictionsSnapshot refresh(Context context) {
+        synchronized (this) {
+            refreshes.incrementAndGet();
+            Bundle restrictions = readRestrictions(context);
+
+            // Identical content keeps the current snapshot, so the version only moves on real changes
+            RestrictionsSnapshot snapshot = current;
+            if (snapshot == null) {
+                // Nothing read yet in this process, e.g. a background prefetch: continue from the persisted version
+                snapshot = RestrictionsSnapshotStore.load(context);
+                if (snapshot != null) {
+                    lastVersion = Math.max(lastVersion, snapshot.getVersion());
+                }
+            }
+            if (snapshot != null && snapshot.hasSameContent(restrictions)) {
+                if (!snapshot.isStale()) {
+                    return snapshot;
+                }
+                // A restored snapshot that matches the live restrictions is simply confirmed
+                snapshot = new RestrictionsSnapshot(snapshot.getVersion(), restrictions, System.currentTimeMillis());
+            } else {
+                snapshot = new RestrictionsSnapshot(++lastVersion, restrictions, System.currentTimeMillis());
+            }
+
+            current = snapshot;
+            RestrictionsSnapshotStore.saveAsync(context, snapshot);
+            return snapshot;
+        }
+    }
+
+    // Forgets the snapshot and the counters, so tests do not depend on each other's order
+    synchronized void reset() {
+        current = null;
+        lastVersion = 0;
+        hits.set(0);
+        misses.set(0);
+        refreshes.set(0);
+    }
+
+    RestrictionsSnapshot peek() {
+        return current;
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getRefreshes() {
+        return refreshes.get();
+    }
+
+    long getVersion() {
+        RestrictionsSnapshot snapshot = current;
+        return snapshot != null ? snapshot.getVersion() : 0;
+    }
+
+    boolean isStale() {
+        RestrictionsSnapshot snapshot = current;
+        return snapshot != null && snapshot.isStale();
+    }
+
+    // Must be called while holding the lock so versions stay strictly increasing
+    private RestrictionsSnapshot load(Context context) {
+        return new RestrictionsSnapshot(++lastVersion, readRestrictions(context), System.currentTimeMillis());
+    }
+
+    private static Bundle readRestrictions(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return null;
+        }
+
+        RestrictionsManager restrictionsManager = (RestrictionsManager) context.getApplicationContext().getSystemService(Context.RESTRICTIONS_SERVICE);
+        if (restrictionsManager == null) {
+            return null;
+        }
+        MDMMetrics.getInstance().countRestrictionsManagerCall();
+        return restrictionsManager.getApplicationRestrictions();
+    }
+}
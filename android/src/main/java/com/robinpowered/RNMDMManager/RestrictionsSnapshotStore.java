@@ -0,0 +1,287 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the last known restrictions snapshot in app-private storage, so a cold
+ * start can serve configuration before {@link android.content.RestrictionsManager}
+ * has been queried.
+ *
+ * The file uses a small tagged binary format rather than {@link android.os.Parcel},
+ * whose layout is not guaranteed to be stable across platform versions.
+ */
+final class RestrictionsSnapshotStore {
+    private static final String FILE_NAME = "rnmdm-restrictions.bin";
+
+    private static final int MAGIC = 0x524d444d; // "RMDM"
+    // Version 2 added int[] values, which version 1 stored as their identity string
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_STRING_ARRAY = 6;
+    private static final byte TYPE_BUNDLE = 7;
+    private static final byte TYPE_BUNDLE_ARRAY = 8;
+    private static final byte TYPE_INT_ARRAY = 9;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(
+            BackgroundTaskRunner.newThreadFactory("RNMDM-SnapshotStore"));
+
+    private RestrictionsSnapshotStore() {
+    }
+
+    // Returns the persisted snapshot marked as stale, or null when none could be read
+    static RestrictionsSnapshot load(Context context) {
+        AtomicFile file = getFile(context);
+        if (!file.getBaseFile().exists()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.openRead()));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                file.delete();
+                return null;
+            }
+            long version = in.readLong();
+            long capturedAt = in.readLong();
+            Bundle restrictions = readBundle(in);
+            return new RestrictionsSnapshot(version, restrictions, capturedAt, true);
+        } catch (Exception e) {
+            MDMLog.w("discarding unreadable restrictions snapshot", e);
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    static void saveAsync(Context context, final RestrictionsSnapshot snapshot) {
+        final Context applicationContext = context.getApplicationContext();
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                save(applicationContext, snapshot);
+            }
+        });
+    }
+
+    // Blocks until the writes queued so far are on disk, or the timeout passes
+    static void awaitPendingWrites(long timeoutMs) {
+        Future<?> marker = writer.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        try {
+            marker.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            MDMLog.w("pending snapshot writes did not finish", e);
+        }
+    }
+
+    static void save(Context context, RestrictionsSnapshot snapshot) {
+        AtomicFile file = getFile(context);
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(snapshot.getVersion());
+            out.writeLong(snapshot.getCapturedAt());
+            out.writeInt(snapshot.size());
+            for (String key : snapshot.keySet()) {
+                writeString(out, key);
+                writeValue(out, snapshot.get(key));
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            MDMLog.w("could not persist restrictions snapshot", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private static AtomicFile getFile(Context context) {
+        return new AtomicFile(new File(context.getApplicationContext().getNoBackupFilesDir(), FILE_NAME));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void writeBundle(DataOutputStream out, Bundle bundle) throws IOException {
+        out.writeInt(bundle.size());
+        for (String key : bundle.keySet()) {
+            writeString(out, key);
+            writeValue(out, bundle.get(key));
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Number) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof String[]) {
+            String[] values = (String[]) value;
+            out.writeByte(TYPE_STRING_ARRAY);
+            out.writeInt(values.length);
+            for (String item : values) {
+                writeNullableString(out, item);
+            }
+        } else if (value instanceof int[]) {
+            int[] values = (int[]) value;
+            out.writeByte(TYPE_INT_ARRAY);
+            out.writeInt(values.length);
+            for (int item : values) {
+                out.writeInt(item);
+            }
+        } else if (value instanceof Bundle) {
+            out.writeByte(TYPE_BUNDLE);
+            writeBundle(out, (Bundle) value);
+        } else if (value instanceof Parcelable[]) {
+            Parcelable[] values = (Parcelable[]) value;
+            out.writeByte(TYPE_BUNDLE_ARRAY);
+            out.writeInt(values.length);
+            for (Parcelable item : values) {
+                writeBundle(out, item instanceof Bundle ? (Bundle) item : new Bundle());
+            }
+        } else {
+            out.writeByte(TYPE_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Bundle readBundle(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Bundle bundle = new Bundle();
+        for (int i = 0; i < size; i++) {
+            readValue(in, bundle, readString(in));
+        }
+        return bundle;
+    }
+
+    private static void readValue(DataInputStream in, Bundle bundle, String key) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                bundle.putString(key, null);
+                break;
+            case TYPE_STRING:
+                bundle.putString(key, readString(in));
+                break;
+            case TYPE_BOOLEAN:
+                bundle.putBoolean(key, in.readBoolean());
+                break;
+            case TYPE_INT:
+                bundle.putInt(key, in.readInt());
+                break;
+            case TYPE_LONG:
+                bundle.putLong(key, in.readLong());
+                break;
+            case TYPE_DOUBLE:
+                bundle.putDouble(key, in.readDouble());
+                break;
+            case TYPE_STRING_ARRAY: {
+                String[] values = new String[in.readInt()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readNullableString(in);
+                }
+                bundle.putStringArray(key, values);
+                break;
+            }
+            case TYPE_INT_ARRAY: {
+                int[] values = new int[in.readInt()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readInt();
+                }
+                bundle.putIntArray(key, values);
+                break;
+            }
+            case TYPE_BUNDLE:
+                bundle.putBundle(key, readBundle(in));
+                break;
+            case TYPE_BUNDLE_ARRAY: {
+                Bundle[] values = new Bundle[in.readInt()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readBundle(in);
+                }
+                bundle.putParcelableArray(key, values);
+                break;
+            }
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    // Length-prefixed UTF-8, since DataOutputStream.writeUTF is capped at 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void closeQuietly(DataInputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
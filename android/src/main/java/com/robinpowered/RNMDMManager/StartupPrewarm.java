@@ -0,0 +1,48 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the restrictions snapshot and the management facts on a background thread
+ * once per process, ahead of the first JS call.
+ *
+ * Nothing is handed over explicitly: the snapshot cache and the facts compute
+ * their values under their own locks, so a {@code getDeviceInfo()} arriving while
+ * the prewarm is still running waits for that work and reuses its result instead
+ * of issuing the same binder calls again.
+ */
+final class StartupPrewarm {
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    private StartupPrewarm() {
+    }
+
+    static void start(Context context) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        final Context applicationContext = context.getApplicationContext();
+        Thread thread = BackgroundTaskRunner.newThreadFactory("RNMDM-Prewarm").newThread(new Runnable() {
+            @Override
+            public void run() {
+                long start = MDMMetrics.getInstance().startCall();
+                try {
+                    // The same order getDeviceInfo reads them in
+                    RestrictionsSnapshot snapshot = RestrictionsSnapshotCache.getInstance().get(applicationContext);
+                    ManagementFacts facts = ManagementFacts.get(applicationContext);
+                    facts.getPackageInfo();
+                    facts.getDisplayName();
+                    snapshot.getManagedVerdict(facts);
+                    MDMMetrics.getInstance().endPath("prewarm", start, snapshot.size());
+                    MDMLog.d("prewarm finished", "keys", snapshot.size());
+                } catch (Exception e) {
+                    MDMLog.w("prewarm failed", e);
+                }
+            }
+        });
+        thread.start();
+    }
+}
@@ -0,0 +1,156 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Bundle;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Path lookups into a {@link RestrictionsSnapshot}, including restriction values
+ * that hold a JSON document (as some EMMs deliver {@code ManagedConfiguration}).
+ *
+ * A JSON value is parsed the first time a path reaches it and the parsed tree is
+ * kept for the lifetime of the snapshot, so repeated lookups never parse again and
+ * JS only ever receives the node it asked for.
+ *
+ * Paths are dot separated and use numeric segments for array items, e.g.
+ * {@code features.kiosk.timeout} or {@code servers.0.host}. The longest restriction
+ * key the path starts with is resolved first, so keys containing dots work. When
+ * no key matches, the path is looked up inside the JSON object values instead.
+ */
+final class StructuredValues {
+    static final Object MISSING = new Object();
+
+    // Cached for values that are not a JSON document, so they are not tried again
+    private static final Object NOT_JSON = new Object();
+
+    private final RestrictionsSnapshot snapshot;
+    private final ConcurrentHashMap<String, Object> parsed = new ConcurrentHashMap<String, Object>();
+
+    StructuredValues(RestrictionsSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // Returns the node at the path, which may be null, or MISSING
+    Object get(String path) {
+        if (path == null || path.isEmpty()) {
+            return MISSING;
+        }
+
+        // Longest matching key first
+        int end = path.length();
+        while (end > 0) {
+            String key = path.substring(0, end);
+            if (snapshot.containsKey(key)) {
+                Object root = valueOf(key);
+                return end == path.length() ? root : resolve(root, path, end + 1);
+            }
+            end = path.lastIndexOf('.', end - 1);
+        }
+
+        // Otherwise a top-level field of one of the JSON documents, in key order; the
+        // snapshot sorts its keys once, so a miss does not sort them again
+        for (String key : snapshot.keysWithPrefix("")) {
+            Object root = valueOf(key);
+            if (root instanceof JSONObject) {
+                Object node = resolve(root, path, 0);
+                if (node != MISSING) {
+                    return node;
+                }
+            }
+        }
+        return MISSING;
+    }
+
+    // The restriction value, with a JSON document replaced by its parsed tree
+    private Object valueOf(String key) {
+        Object value = snapshot.get(key);
+        if (!(value instanceof String)) {
+            return value;
+        }
+
+        Object document = parsed.get(key);
+        if (document == null) {
+            document = parse((String) value);
+            parsed.putIfAbsent(key, document);
+        }
+        return document == NOT_JSON ? value : document;
+    }
+
+    private static Object parse(String value) {
+        String trimmed = value.trim();
+        if (!trimmed.startsWith("{") && !trimmed.startsWith("[")) {
+            return NOT_JSON;
+        }
+
+        try {
+            Object document = new JSONTokener(trimmed).nextValue();
+            return document instanceof JSONObject || document instanceof JSONArray ? document : NOT_JSON;
+        } catch (Exception e) {
+            MDMLog.d("value is not a json document", "length", value.length());
+            return NOT_JSON;
+        }
+    }
+
+    // Walks the segments of path starting at offset
+    @SuppressWarnings("deprecation")
+    private static Object resolve(Object node, String path, int offset) {
+        while (offset <= path.length()) {
+            int dot = path.indexOf('.', offset);
+            String segment = path.substring(offset, dot < 0 ? path.length() : dot);
+
+            if (node instanceof JSONObject) {
+                node = ((JSONObject) node).opt(segment);
+                if (node == null) {
+                    return MISSING;
+                }
+            } else if (node instanceof Bundle) {
+                Bundle bundle = (Bundle) node;
+                if (!bundle.containsKey(segment)) {
+                    return MISSING;
+                }
+                node = bundle.get(segment);
+            } else if (node instanceof JSONArray) {
+                int index = indexOf(segment);
+                JSONArray array = (JSONArray) node;
+                if (index < 0 || index >= array.length()) {
+                    return MISSING;
+                }
+                node = array.opt(index);
+            } else if (node instanceof Object[]) {
+                int index = indexOf(segment);
+                Object[] array = (Object[]) node;
+                if (index < 0 || index >= array.length) {
+                    return MISSING;
+                }
+                node = array[index];
+            } else {
+                return MISSING;
+            }
+
+            if (dot < 0) {
+                return node == JSONObject.NULL ? null : node;
+            }
+            offset = dot + 1;
+        }
+        return MISSING;
+    }
+
+    private static int indexOf(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+}
@@ -0,0 +1,163 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.RestrictionsManager;
+import android.os.Bundle;
+import android.os.Looper;
+
+import com.facebook.react.bridge.JavaScriptModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Soak run of the change pipeline: the module goes through resume/pause cycles
+ * with a burst of restriction-change broadcasts in every resumed phase, and the
+ * restrictions change every few cycles. The monitor thread runs on a paused
+ * looper, so the coalescing window elapses on Robolectric's clock.
+ *
+ * Slow and sensitive to GC timing, so like the benchmarks it only runs when asked for:
+ *
+ * <pre>./gradlew testDebugUnitTest -Prnmdm.benchmark --tests '*ChangePipelineSoakTest'</pre>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class ChangePipelineSoakTest {
+    private static final int CYCLES = 1000;
+    private static final int BROADCASTS_PER_BURST = 10;
+    private static final int CHANGE_EVERY = 10;
+    private static final int WARMUP_CYCLES = 100;
+    // Allowance for GC noise between the two heap samples
+    private static final long HEAP_GROWTH_LIMIT_BYTES = 8 * 1024 * 1024;
+
+    private final AtomicLong configEvents = new AtomicLong();
+
+    private Context context;
+    private RestrictionsChangeMonitor monitor;
+    private RNMobileDeviceManagerModule module;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(Boolean.getBoolean("rnmdm.benchmark"));
+
+        context = RuntimeEnvironment.getApplication();
+        monitor = RestrictionsChangeMonitor.getInstance();
+        setRestrictions(-1);
+
+        module = new RNMobileDeviceManagerModule(new TestReactContext(context, new DeviceEventManagerModule.RCTDeviceEventEmitter() {
+            @Override
+            public void emit(String eventName, Object data) {
+                if (RNMobileDeviceManagerModule.APP_CONFIG_CHANGED.equals(eventName)) {
+                    configEvents.incrementAndGet();
+                }
+            }
+        }));
+        module.initialize();
+        module.onHostPause();
+        idle();
+        configEvents.set(0);
+    }
+
+    @Test
+    public void resumePauseCyclesStayBalancedAndEmitOnlyForChanges() throws InterruptedException {
+        long registrationsBefore = monitor.getRegistrations();
+        long unregistrationsBefore = monitor.getUnregistrations();
+        long broadcastsBefore = monitor.getBroadcastsReceived();
+        long coalescedBefore = monitor.getBroadcastsCoalesced();
+        long heapBefore = 0;
+
+        for (int cycle = 0; cycle < CYCLES; cycle++) {
+            module.onHostResume();
+            idle();
+            if (cycle % CHANGE_EVERY == 0) {
+                setRestrictions(cycle);
+            }
+            for (int i = 0; i < BROADCASTS_PER_BURST; i++) {
+                context.sendBroadcast(new Intent(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED));
+            }
+            idle();
+            module.onHostPause();
+
+            if (cycle == WARMUP_CYCLES - 1) {
+                heapBefore = retainedHeap();
+            }
+        }
+
+        long broadcasts = monitor.getBroadcastsReceived() - broadcastsBefore;
+        long heapGrowth = retainedHeap() - heapBefore;
+
+        // Every resume registers the receiver once and every pause takes it down again
+        assertEquals(CYCLES, monitor.getRegistrations() - registrationsBefore);
+        assertEquals(CYCLES, monitor.getUnregistrations() - unregistrationsBefore);
+        assertFalse(monitor.isReceiverRegistered());
+
+        // Each burst is folded into a single delivery
+        assertEquals(CYCLES * BROADCASTS_PER_BURST, broadcasts);
+        assertEquals(CYCLES, broadcasts - (monitor.getBroadcastsCoalesced() - coalescedBefore));
+
+        // One event per real change, none for the bursts that changed nothing
+        assertEquals(CYCLES / CHANGE_EVERY, configEvents.get());
+        assertTrue(monitor.getMaxEventsPerDelivery() <= 1);
+
+        assertTrue("retained heap grew by " + heapGrowth + " bytes", heapGrowth < HEAP_GROWTH_LIMIT_BYTES);
+    }
+
+    private void setRestrictions(int generation) {
+        Bundle restrictions = new Bundle();
+        restrictions.putString("url", "https://kiosk.example.com/" + generation);
+        restrictions.putBoolean("kiosk", true);
+        restrictions.putInt("timeout", 300);
+        RestrictionsManager restrictionsManager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
+        shadowOf(restrictionsManager).setApplicationRestrictions(restrictions);
+    }
+
+    private void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+        shadowOf(monitor.getLooper()).idleFor(monitor.getCoalescingWindow(), TimeUnit.MILLISECONDS);
+    }
+
+    private static long retainedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // A React context with a live catalyst instance whose events are counted instead of sent to JS
+    private static final class TestReactContext extends ReactApplicationContext {
+        private final DeviceEventManagerModule.RCTDeviceEventEmitter emitter;
+
+        TestReactContext(Context context, DeviceEventManagerModule.RCTDeviceEventEmitter emitter) {
+            super(context);
+            this.emitter = emitter;
+        }
+
+        @Override
+        public boolean hasActiveCatalystInstance() {
+            return true;
+        }
+
+        @Override
+        public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+            return jsInterface.cast(emitter);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Bundle;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ContentHashTest {
+    @Test
+    public void isSixteenHexDigitsAndIgnoresInsertionOrder() {
+        Bundle first = new Bundle();
+        first.putString("AccountEmail", "user@example.com");
+        first.putInt("KioskTimeout", 30);
+        Bundle second = new Bundle();
+        second.putInt("KioskTimeout", 30);
+        second.putString("AccountEmail", "user@example.com");
+
+        String hash = ContentHash.of(first);
+        assertTrue(hash, hash.matches("[0-9a-f]{16}"));
+        assertEquals(hash, ContentHash.of(second));
+        assertEquals(16, ContentHash.of(new Bundle()).length());
+    }
+
+    @Test
+    public void distinguishesTypesAndKeyBoundaries() {
+        assertNotEquals(ContentHash.of(bundleOf("key", "1")), ContentHash.of(bundleOf("key", 1)));
+        assertNotEquals(ContentHash.of(bundleOf("key", 1)), ContentHash.of(bundleOf("key", 1L)));
+        assertNotEquals(ContentHash.of(bundleOf("ab", "c")), ContentHash.of(bundleOf("a", "bc")));
+        assertNotEquals(ContentHash.of(bundleOf("key", null)), ContentHash.of(bundleOf("key", "")));
+    }
+
+    @Test
+    public void coversNestedBundlesAndArrays() {
+        Bundle nested = new Bundle();
+        nested.putString("host", "a.example.com");
+        Bundle changed = new Bundle();
+        changed.putString("host", "b.example.com");
+
+        Bundle before = new Bundle();
+        before.putBundle("server", nested);
+        before.putParcelableArray("servers", new Bundle[]{nested});
+        Bundle after = new Bundle();
+        after.putBundle("server", nested);
+        after.putParcelableArray("servers", new Bundle[]{changed});
+
+        assertNotEquals(ContentHash.of(before), ContentHash.of(after));
+    }
+
+    @Test
+    public void hashesIntArraysByContent() {
+        Bundle first = new Bundle();
+        first.putIntArray("channels", new int[]{1, 2, 3});
+        Bundle same = new Bundle();
+        same.putIntArray("channels", new int[]{1, 2, 3});
+        Bundle changed = new Bundle();
+        changed.putIntArray("channels", new int[]{1, 2, 4});
+
+        assertEquals(ContentHash.of(first), ContentHash.of(same));
+        assertNotEquals(ContentHash.of(first), ContentHash.of(changed));
+    }
+
+    private static Bundle bundleOf(String key, Object value) {
+        Bundle bundle = new Bundle();
+        if (value instanceof Integer) {
+            bundle.putInt(key, (Integer) value);
+        } else if (value instanceof Long) {
+            bundle.putLong(key, (Long) value);
+        } else {
+            bundle.putString(key, (String) value);
+        }
+        return bundle;
+    }
+}
@@ -0,0 +1,94 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class DiagnosticsExporterTest {
+    private static final int MAX_BYTES = 8192;
+
+    @Test
+    public void staysUnderMaxBytesForMultiByteEscapedAndNestedValues() throws Exception {
+        Bundle nested = new Bundle();
+        for (int i = 0; i < 500; i++) {
+            nested.putString("key" + i, repeat("\u20AC", 100));
+        }
+        int[] numbers = new int[5000];
+        Arrays.fill(numbers, Integer.MIN_VALUE);
+
+        Bundle restrictions = new Bundle();
+        restrictions.putString("accented", repeat("\u00E9", 4000));
+        restrictions.putString("emoji", repeat("\uD83D\uDE00", 4000));
+        restrictions.putString("escaped", repeat("\u0001\"", 4000));
+        restrictions.putIntArray("numbers", numbers);
+        restrictions.putBundle("nested", nested);
+
+        ReadableMap summary = export(restrictions, 1 << 20);
+        File file = new File(summary.getString("path"));
+
+        assertTrue("export is " + file.length() + " bytes", file.length() <= MAX_BYTES);
+        assertEquals(file.length(), (long) summary.getDouble("bytes"));
+        assertTrue(summary.getInt("truncatedValues") > 0);
+        assertTrue(summary.getBoolean("truncated"));
+        // Still a complete document
+        new JSONObject(new String(Files.readAllBytes(file.toPath()), "UTF-8"));
+    }
+
+    @Test
+    public void truncatesLongValuesWithoutSplittingSurrogatePairs() throws Exception {
+        Bundle restrictions = new Bundle();
+        restrictions.putString("emoji", repeat("\uD83D\uDE00", 100));
+
+        ReadableMap summary = export(restrictions, 33);
+        JSONObject report = new JSONObject(new String(Files.readAllBytes(new File(summary.getString("path")).toPath()), "UTF-8"));
+        String value = report.getJSONObject("configuration").getJSONObject("values").getString("emoji");
+
+        assertEquals(repeat("\uD83D\uDE00", 16) + "...[168 more chars]", value);
+        assertEquals(1, summary.getInt("truncatedValues"));
+    }
+
+    @Test
+    public void everyExportGetsItsOwnFile() throws Exception {
+        Bundle restrictions = new Bundle();
+        restrictions.putString("url", "https://kiosk.example.com");
+
+        String first = export(restrictions, 1024).getString("path");
+        String second = export(restrictions, 1024).getString("path");
+
+        assertNotEquals(first, second);
+        assertTrue(new File(first).exists());
+        assertTrue(new File(second).exists());
+    }
+
+    private static ReadableMap export(Bundle restrictions, int maxValueLength) throws Exception {
+        Context context = RuntimeEnvironment.getApplication();
+        RestrictionsSnapshot snapshot = new RestrictionsSnapshot(1, restrictions, System.currentTimeMillis());
+        return new DiagnosticsExporter(MAX_BYTES, maxValueLength).export(context, snapshot, ManagementFacts.get(context));
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder(value.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.robinpowered.RNMDMManager;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IdentityFieldsTest {
+    @Test
+    public void domainIsThePartAfterTheFirstAt() {
+        assertEquals("example.com", IdentityFields.domainOf("user@example.com"));
+        assertEquals("example.com", IdentityFields.domainOf("@example.com"));
+        assertEquals("example.com", IdentityFields.domainOf("user@example.com@other.org"));
+    }
+
+    @Test
+    public void domainFollowsStringSplitForEmptyParts() {
+        assertNull(IdentityFields.domainOf(null));
+        assertNull(IdentityFields.domainOf("user"));
+        assertNull(IdentityFields.domainOf("user@"));
+        assertNull(IdentityFields.domainOf("user@@"));
+        assertEquals("", IdentityFields.domainOf("user@@example.com"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.robinpowered.RNMDMManager;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeyMatcherTest {
+    private final KeyMatcher matcher = KeyMatcher.compile(Arrays.asList("managed", "intune", "mdm", "policy", "account"));
+
+    @Test
+    public void matchesTermsAnywhereInTheKeyIgnoringCase() {
+        assertTrue(matcher.matches("IntuneMAMUPN"));
+        assertTrue(matcher.matches("com.example.ManagedConfiguration"));
+        assertTrue(matcher.matches("UserAccountName"));
+        assertTrue(matcher.matches("MDM"));
+        assertFalse(matcher.matches("KioskTimeout"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void followsFailureTransitionsAcrossOverlappingTerms() {
+        KeyMatcher overlapping = KeyMatcher.compile(Arrays.asList("abcd", "bce"));
+
+        // "abc" leaves the automaton inside "abcd", the 'e' has to continue from "bc"
+        assertTrue(overlapping.matches("xabce"));
+        assertTrue(overlapping.matches("ABCD"));
+        assertFalse(overlapping.matches("abcbd"));
+    }
+
+    @Test
+    public void foldsCharactersOutsideAscii() {
+        KeyMatcher accented = KeyMatcher.compile(Collections.singletonList("\u00C9QUIPE"));
+
+        assertTrue(accented.matches("nom\u00E9quipe"));
+        assertTrue(accented.matches("NOM\u00C9QUIPE"));
+        assertFalse(accented.matches("nomequipe"));
+        // Kelvin sign, which Character.toLowerCase folds to an ASCII 'k'
+        assertTrue(KeyMatcher.compile(Collections.singletonList("kiosk")).matches("\u212Aiosk"));
+    }
+
+    @Test
+    public void ignoresEmptyTermsAndExtendsWithoutChangingTheOriginal() {
+        KeyMatcher empty = KeyMatcher.compile(Arrays.asList("", null));
+        assertTrue(empty.getTerms().isEmpty());
+        assertFalse(empty.matches("anything"));
+
+        KeyMatcher extended = matcher.with(Collections.singletonList("Kiosk"));
+        assertTrue(extended.matches("KioskTimeout"));
+        assertTrue(extended.matches("IntuneMAMUPN"));
+        assertFalse(matcher.matches("KioskTimeout"));
+        assertEquals(6, extended.getTerms().size());
+    }
+}
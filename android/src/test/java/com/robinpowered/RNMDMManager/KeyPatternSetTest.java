@@ -0,0 +1,54 @@
+package com.robinpowered.RNMDMManager;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeyPatternSetTest {
+    @Test
+    public void matchesExactKeysPrefixesAndGlobs() {
+        KeyPatternSet patterns = KeyPatternSet.compile(Arrays.asList("KioskMode", "Account*", "Server?Host", "*.timeout"));
+
+        assertTrue(patterns.matches("KioskMode"));
+        assertFalse(patterns.matches("KioskModeEnabled"));
+        assertTrue(patterns.matches("Account"));
+        assertTrue(patterns.matches("AccountEmail"));
+        assertTrue(patterns.matches("Server1Host"));
+        assertFalse(patterns.matches("ServerHost"));
+        assertFalse(patterns.matches("Server12Host"));
+        assertTrue(patterns.matches("kiosk.timeout"));
+        assertFalse(patterns.matches("kiosk.timeoutMs"));
+    }
+
+    @Test
+    public void isCaseSensitive() {
+        KeyPatternSet patterns = KeyPatternSet.compile(Arrays.asList("KioskMode", "Account*", "Server?Host"));
+
+        assertFalse(patterns.matches("kioskmode"));
+        assertFalse(patterns.matches("accountEmail"));
+        assertFalse(patterns.matches("server1host"));
+    }
+
+    @Test
+    public void globsBacktrackToTheLastStar() {
+        assertTrue(KeyPatternSet.globMatches("a*b*c", "aXbYbZc"));
+        assertTrue(KeyPatternSet.globMatches("*ab", "aaab"));
+        assertTrue(KeyPatternSet.globMatches("a**", "a"));
+        assertTrue(KeyPatternSet.globMatches("?*?", "ab"));
+        assertFalse(KeyPatternSet.globMatches("?*?", "a"));
+        assertFalse(KeyPatternSet.globMatches("a*b", "aXbc"));
+        assertFalse(KeyPatternSet.globMatches("", "a"));
+    }
+
+    @Test
+    public void skipsEmptyPatterns() {
+        assertTrue(KeyPatternSet.compile(Arrays.asList("", null)).isEmpty());
+        assertTrue(KeyPatternSet.compile(Collections.<String>emptyList()).isEmpty());
+        assertFalse(KeyPatternSet.compile(Collections.singletonList("*")).isEmpty());
+        assertTrue(KeyPatternSet.compile(Collections.singletonList("*")).matches("anything"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Bundle;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH microbenchmarks of the conversion, key search, domain extraction and managed
+ * detection paths at 10, 100 and 1000 restriction keys, every tenth of them a
+ * nested bundle. Run through {@link RestrictionsBenchmarkTest}: Robolectric stands
+ * in for {@link Bundle} and the system managers, {@link ShadowArguments} for the
+ * bridge maps. Numbers are for comparing changes, not for predicting device timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RestrictionsBenchmark {
+    @Param({"10", "100", "1000"})
+    public int keys;
+
+    private RestrictionsSnapshot snapshot;
+    private ManagementFacts facts;
+    private KeyMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        Bundle restrictions = new Bundle();
+        restrictions.putString(IdentityFields.ACCOUNT_EMAIL, "kiosk@corp.example.com");
+        restrictions.putString(IdentityFields.INTUNE_UPN, "kiosk@corp.example.com");
+        restrictions.putString(IdentityFields.ACCOUNT_NAME, "Front desk");
+        for (int i = 0; restrictions.size() < keys; i++) {
+            switch (i % 10) {
+                case 0:
+                    Bundle nested = new Bundle();
+                    nested.putString("url", "https://kiosk.example.com/" + i);
+                    nested.putInt("timeout", i);
+                    nested.putBoolean("enabled", true);
+                    nested.putStringArray("hosts", new String[]{"a.example.com", "b.example.com"});
+                    restrictions.putBundle("policy.group" + i, nested);
+                    break;
+                case 1:
+                    restrictions.putInt("managed.limit" + i, i);
+                    break;
+                case 2:
+                    restrictions.putBoolean("feature.flag" + i, i % 4 == 0);
+                    break;
+                case 3:
+                    restrictions.putStringArray("app.allowList" + i, new String[]{"com.example.one", "com.example.two"});
+                    break;
+                default:
+                    restrictions.putString("app.setting" + i, "value-" + i);
+                    break;
+            }
+        }
+
+        snapshot = new RestrictionsSnapshot(1, restrictions, System.currentTimeMillis());
+        facts = ManagementFacts.get(RuntimeEnvironment.getApplication());
+        matcher = KeyMatcher.compile(Arrays.asList("managed", "intune", "mdm", "policy", "account"));
+    }
+
+    @Benchmark
+    public WritableMap convertSnapshot() {
+        return RestrictionsConverter.toWritableMap(snapshot);
+    }
+
+    // The key search of getDirectConfiguration
+    @Benchmark
+    public int matchKeys() {
+        int matched = 0;
+        for (String key : snapshot.keySet()) {
+            if (matcher.matches(key)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public IdentityFields extractIdentity() {
+        return IdentityFields.derive(snapshot);
+    }
+
+    @Benchmark
+    public ManagedVerdict detectManaged() {
+        return ManagedVerdict.evaluate(snapshot, facts);
+    }
+}
@@ -0,0 +1,61 @@
+package com.robinpowered.RNMDMManager;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.Collection;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs {@link RestrictionsBenchmark} with the GC profiler, which adds the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}) next to the time. Skipped
+ * unless asked for, so the regular unit test run stays fast:
+ *
+ * <pre>./gradlew testDebugUnitTest -Prnmdm.benchmark --tests '*RestrictionsBenchmarkTest'</pre>
+ *
+ * Results are also written as JSON to {@code build/reports/jmh/results.json}.
+ *
+ * JMH runs without forking, inside the Robolectric sandbox, because the benchmarks
+ * need its {@link android.os.Bundle}. The shadowed and instrumented classes make
+ * the figures relative only: compare runs of the same setup, never device numbers.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowArguments.class, instrumentedPackages = "com.facebook.react.bridge")
+public class RestrictionsBenchmarkTest {
+    @Test
+    public void runBenchmarks() throws RunnerException {
+        Assume.assumeTrue(Boolean.getBoolean("rnmdm.benchmark"));
+
+        File results = new File(System.getProperty("rnmdm.benchmark.results", "build/reports/jmh/results.json"));
+        results.getParentFile().mkdirs();
+
+        Options options = new OptionsBuilder()
+                .include(RestrictionsBenchmark.class.getName())
+                // In-process, so the benchmarks run inside the Robolectric sandbox
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.getAbsolutePath())
+                .build();
+        Collection<RunResult> runResults = new Runner(options).run();
+
+        assertFalse(runResults.isEmpty());
+    }
+}
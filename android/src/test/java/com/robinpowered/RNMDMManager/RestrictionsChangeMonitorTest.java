@@ -0,0 +1,166 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.RestrictionsManager;
+import android.os.Bundle;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class RestrictionsChangeMonitorTest {
+    private static final long WINDOW_MS = 250;
+
+    private final List<RestrictionsDelta> deliveries = new ArrayList<RestrictionsDelta>();
+    private final RestrictionsChangeMonitor.Listener listener = new RestrictionsChangeMonitor.Listener() {
+        @Override
+        public void onRestrictionsChanged(RestrictionsSnapshot snapshot, RestrictionsDelta delta) {
+            deliveries.add(delta);
+        }
+    };
+
+    private Context context;
+    private RestrictionsChangeMonitor monitor;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        RestrictionsSnapshotCache.getInstance().reset();
+        monitor = new RestrictionsChangeMonitor();
+        monitor.setCoalescingWindow(WINDOW_MS);
+
+        setRestrictions("https://a.example.com");
+        monitor.acquire(context, listener);
+        // Start every case with the initial restrictions delivered
+        broadcast();
+        deliveries.clear();
+    }
+
+    @After
+    public void tearDown() {
+        monitor.release(listener);
+        monitor.quit();
+        // The cache is process-wide; let queued snapshot writes land before forgetting it
+        RestrictionsSnapshotStore.awaitPendingWrites(1000);
+        RestrictionsSnapshotCache.getInstance().reset();
+    }
+
+    @Test
+    public void deliversChangedRestrictions() {
+        setRestrictions("https://b.example.com");
+        broadcast();
+
+        assertEquals(1, deliveries.size());
+        assertEquals(Collections.singletonList("url"), deliveries.get(0).getChanged());
+    }
+
+    @Test
+    public void dropsDeliveryOfUnchangedRestrictions() {
+        long redundant = monitor.getRedundantDeliveries();
+
+        broadcast();
+
+        assertTrue(deliveries.isEmpty());
+        assertEquals(redundant + 1, monitor.getRedundantDeliveries());
+    }
+
+    @Test
+    public void firstDeliveryIsDiffedAgainstTheCachedSnapshot() {
+        final List<RestrictionsDelta> firstDeliveries = new ArrayList<RestrictionsDelta>();
+        RestrictionsChangeMonitor fresh = new RestrictionsChangeMonitor();
+        RestrictionsChangeMonitor.Listener freshListener = new RestrictionsChangeMonitor.Listener() {
+            @Override
+            public void onRestrictionsChanged(RestrictionsSnapshot snapshot, RestrictionsDelta delta) {
+                firstDeliveries.add(delta);
+            }
+        };
+        long cachedVersion = RestrictionsSnapshotCache.getInstance().getVersion();
+
+        try {
+            fresh.acquire(context, freshListener);
+            setRestrictions("https://e.example.com");
+            context.sendBroadcast(new Intent(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED));
+            shadowOf(Looper.getMainLooper()).idle();
+            shadowOf(fresh.getLooper()).idleFor(RestrictionsChangeMonitor.DEFAULT_COALESCING_WINDOW_MS, TimeUnit.MILLISECONDS);
+            fresh.release(freshListener);
+        } finally {
+            fresh.quit();
+        }
+
+        assertEquals(1, firstDeliveries.size());
+        RestrictionsDelta delta = firstDeliveries.get(0);
+        assertTrue(delta.getAdded().isEmpty());
+        assertEquals(Collections.singletonList("url"), delta.getChanged());
+        assertEquals(cachedVersion, delta.getPreviousVersion());
+    }
+
+    @Test
+    public void deliversChangePushedWhileReleased() {
+        monitor.release(listener);
+        // No broadcast reaches a released monitor
+        setRestrictions("https://d.example.com");
+
+        monitor.acquire(context, listener);
+        idle();
+
+        assertEquals(1, deliveries.size());
+        assertEquals(Collections.singletonList("url"), deliveries.get(0).getChanged());
+    }
+
+    @Test
+    public void reacquireWithUnchangedRestrictionsDeliversNothing() {
+        monitor.release(listener);
+        monitor.acquire(context, listener);
+        idle();
+
+        assertTrue(deliveries.isEmpty());
+    }
+
+    @Test
+    public void coalescesBurstIntoOneDelivery() {
+        long before = monitor.getDeliveries();
+
+        setRestrictions("https://c.example.com");
+        for (int i = 0; i < 10; i++) {
+            context.sendBroadcast(new Intent(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED));
+        }
+        idle();
+
+        assertEquals(before + 1, monitor.getDeliveries());
+        assertEquals(1, deliveries.size());
+    }
+
+    private void setRestrictions(String url) {
+        Bundle restrictions = new Bundle();
+        restrictions.putString("url", url);
+        restrictions.putBoolean("kiosk", true);
+        RestrictionsManager restrictionsManager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
+        shadowOf(restrictionsManager).setApplicationRestrictions(restrictions);
+    }
+
+    private void broadcast() {
+        context.sendBroadcast(new Intent(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED));
+        idle();
+    }
+
+    // Delivers pending broadcasts to the monitor thread and runs the coalesced delivery
+    private void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+        shadowOf(monitor.getLooper()).idleFor(WINDOW_MS, TimeUnit.MILLISECONDS);
+    }
+}
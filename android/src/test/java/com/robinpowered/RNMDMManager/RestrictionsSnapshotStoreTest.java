@@ -0,0 +1,43 @@
+package com.robinpowered.RNMDMManager;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class RestrictionsSnapshotStoreTest {
+    @Test
+    public void roundTripsEveryRestrictionType() {
+        Context context = RuntimeEnvironment.getApplication();
+        Bundle nested = new Bundle();
+        nested.putString("host", "a.example.com");
+        nested.putIntArray("ports", new int[]{443, 8443});
+
+        Bundle restrictions = new Bundle();
+        restrictions.putString("AccountEmail", "user@example.com");
+        restrictions.putBoolean("KioskMode", true);
+        restrictions.putInt("KioskTimeout", 30);
+        restrictions.putStringArray("Domains", new String[]{"example.com", null});
+        restrictions.putIntArray("Channels", new int[]{1, -1, Integer.MAX_VALUE});
+        restrictions.putBundle("Server", nested);
+        restrictions.putParcelableArray("Servers", new Bundle[]{nested});
+        RestrictionsSnapshot saved = new RestrictionsSnapshot(7, restrictions, 1000L);
+
+        RestrictionsSnapshotStore.save(context, saved);
+        RestrictionsSnapshot loaded = RestrictionsSnapshotStore.load(context);
+
+        assertTrue(loaded.isStale());
+        assertEquals(7, loaded.getVersion());
+        assertArrayEquals(new int[]{1, -1, Integer.MAX_VALUE}, (int[]) loaded.get("Channels"));
+        assertArrayEquals(new int[]{443, 8443}, ((Bundle) loaded.get("Server")).getIntArray("ports"));
+        assertEquals(saved.getContentHash(), loaded.getContentHash());
+    }
+}
@@ -0,0 +1,24 @@
+package com.robinpowered.RNMDMManager;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+// Backs the bridge maps with plain Java ones, since the native ones need the React Native libraries
+@Implements(Arguments.class)
+public class ShadowArguments {
+    @Implementation
+    public static WritableMap createMap() {
+        return new JavaOnlyMap();
+    }
+
+    @Implementation
+    public static WritableArray createArray() {
+        return new JavaOnlyArray();
+    }
+}
@@ -0,0 +1,60 @@
+package com.robinpowered.RNMDMManager;
+
+import android.os.Bundle;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class StructuredValuesTest {
+    @Test
+    public void resolvesPathsInsideTheLongestMatchingKey() {
+        Bundle restrictions = new Bundle();
+        restrictions.putString("ManagedConfiguration", "{\"servers\":[{\"host\":\"a.example.com\"}],\"proxy\":null}");
+        restrictions.putString("features.kiosk", "{\"timeout\":30}");
+        restrictions.putString("features", "{\"kiosk\":{\"timeout\":60}}");
+
+        StructuredValues values = valuesOf(restrictions);
+
+        assertEquals("a.example.com", values.get("ManagedConfiguration.servers.0.host"));
+        assertEquals(30, values.get("features.kiosk.timeout"));
+        assertNull(values.get("ManagedConfiguration.proxy"));
+        assertSame(StructuredValues.MISSING, values.get("ManagedConfiguration.servers.1.host"));
+        assertSame(StructuredValues.MISSING, values.get(""));
+    }
+
+    @Test
+    public void fallsBackToTheJsonDocumentsInKeyOrder() {
+        Bundle restrictions = new Bundle();
+        restrictions.putString("Zeta", "{\"timeout\":2}");
+        restrictions.putString("Alpha", "{\"timeout\":1,\"kiosk\":{\"enabled\":true}}");
+        restrictions.putString("Plain", "timeout");
+        restrictions.putString("List", "[{\"timeout\":3}]");
+
+        StructuredValues values = valuesOf(restrictions);
+
+        assertEquals(1, values.get("timeout"));
+        assertEquals(true, values.get("kiosk.enabled"));
+        assertSame(StructuredValues.MISSING, values.get("missing"));
+        // Repeated lookups are answered from the parsed documents
+        assertEquals(1, values.get("timeout"));
+    }
+
+    @Test
+    public void aKeyWinsOverTheJsonDocuments() {
+        Bundle restrictions = new Bundle();
+        restrictions.putString("Alpha", "{\"timeout\":1}");
+        restrictions.putInt("timeout", 5);
+
+        assertEquals(5, valuesOf(restrictions).get("timeout"));
+    }
+
+    private static StructuredValues valuesOf(Bundle restrictions) {
+        return new RestrictionsSnapshot(1, restrictions, System.currentTimeMillis()).getStructuredValues();
+    }
+}
@@ -29,13 +29,79 @@ declare module 'react-native-mdm' {
     // Detected Domain
     companyDomain: string | null;
     
+    // IntuneMAMUPN, else AccountEmail (Android only)
+    userPrincipal?: string | null;
+    
+    // AccountUserDisplayName, else AccountName (Android only)
+    accountDisplayName?: string | null;
+    
     // Bundle Information
     bundleID: string;
+
+    // True while served from the persisted snapshot before it is validated (Android only)
+    configurationStale?: boolean;
+
+    // Content hash of the configuration, for the *IfChanged methods (Android only)
+    configurationHash?: string;
   }
 
+  // Result of a conditional read; value is only sent when the hash no longer matches
+  export type ConditionalResult<T> =
+    | { notModified: true; hash: string }
+    | { notModified: false; hash: string; value: T };
+
   // Event listener callback type
   export type ConfigUpdateListener = (organizationInfo: OrganizationInfo) => void;
 
+  // Delta change event payload (Android only)
+  export interface ConfigDelta {
+    version: number;
+    previousVersion: number;
+    // Content hash of the new configuration
+    hash: string;
+    added: { [key: string]: any };
+    changed: { [key: string]: any };
+    removed: string[];
+    // Derived fields of the new configuration
+    derived: {
+      companyDomain: string | null;
+      userPrincipal: string | null;
+      accountDisplayName: string | null;
+      isManaged: boolean;
+    };
+  }
+
+  export type ConfigDeltaListener = (delta: ConfigDelta) => void;
+
+  // Subscription change event, only the keys matching its patterns (Android only)
+  export interface ConfigSubscriptionEvent {
+    subscriptionId: string;
+    version: number;
+    previousVersion: number;
+    hash: string;
+    added: { [key: string]: any };
+    changed: { [key: string]: any };
+    removed: string[];
+  }
+
+  export type ConfigSubscriptionListener = (event: ConfigSubscriptionEvent) => void;
+
+  export interface ConfigSubscription {
+    subscriptionId: string;
+    // Settles once the native side has registered the patterns
+    ready: Promise<string>;
+    remove(): Promise<boolean>;
+  }
+
+  export type ConfigChangeEventMode = 'full' | 'delta';
+
+  export interface AppLockStatus {
+    appLocked: boolean;
+    appLockingAllowed: boolean;
+  }
+
+  export type AppLockListener = (status: AppLockStatus) => void;
+
   // Detailed diagnostics interface
   export interface DetailedDiagnostics {
     bundleInfo: {
@@ -77,6 +143,97 @@ declare module 'react-native-mdm' {
     };
   }
 
+  export interface MethodMetrics {
+    calls: number;
+    totalMs: number;
+    maxMs: number;
+    items: number;
+    // Counts per latency bucket, see ModuleMetrics.histogramBoundsMs
+    histogram: number[];
+  }
+
+  export interface ModuleMetrics {
+    since: number;
+    // Upper bounds of the histogram buckets; the last bucket is open ended
+    histogramBoundsMs: number[];
+    methods: { [method: string]: MethodMetrics };
+    // Background jobs such as prewarm, prefetch and exportDiagnostics; items is the total number
+    // of restriction keys they processed
+    paths: { [path: string]: MethodMetrics };
+    binderCalls: {
+      restrictionsManager: number;
+      devicePolicyManager: number;
+      packageManager: number;
+    };
+    broadcastsReceived: number;
+    eventsEmitted: number;
+    // Diagnostic calls currently queued or running, not affected by reset
+    backgroundTasksInFlight: number;
+  }
+
+  export type AllSection = 'deviceInfo' | 'enrollmentStatus' | 'capabilities' | 'organizationInfo';
+
+  export interface AllResult {
+    deviceInfo?: DeviceManagementInfo;
+    enrollmentStatus?: { [key: string]: any };
+    capabilities?: { [key: string]: any };
+    organizationInfo?: OrganizationInfo;
+  }
+
+  export type LogLevel = 'verbose' | 'debug' | 'info' | 'warn' | 'error' | 'none';
+
+  // Restrictions snapshot cache counters (Android only)
+  export interface ConfigurationCacheStats {
+    hits: number;
+    misses: number;
+    refreshes: number;
+    version: number;
+    stale: boolean;
+  }
+
+  // Restrictions change monitor counters (Android only)
+  export interface ChangeMonitorStats {
+    activeListeners: number;
+    receiverRegistered: boolean;
+    registrations: number;
+    unregistrations: number;
+    broadcastsReceived: number;
+    broadcastsCoalesced: number;
+    deliveries: number;
+    coalescingWindowMs: number;
+    eventsEmitted: number;
+    // Deliveries dropped because the restrictions had not actually changed
+    redundantDeliveries: number;
+    maxEventsPerDelivery: number;
+  }
+
+  // Options of the diagnostic methods that run on a background executor (Android only)
+  export interface BackgroundTaskOptions {
+    // Rejects the call with E_TIMEOUT after this many milliseconds, default 10000
+    timeoutMs?: number;
+    // Caller-chosen ID for cancelBackgroundTask; must be unique among calls in flight
+    callId?: string;
+  }
+
+  export interface DiagnosticsExportOptions extends BackgroundTaskOptions {
+    // Upper bound for the file size in bytes, default 1 MB
+    maxBytes?: number;
+    // Longer string values are cut to this many characters, default 1024
+    maxValueLength?: number;
+  }
+
+  export interface DiagnosticsExportSummary {
+    path: string;
+    bytes: number;
+    totalKeys: number;
+    writtenKeys: number;
+    truncatedValues: number;
+    // True when configuration entries were left out to stay under maxBytes
+    truncated: boolean;
+    maxBytes: number;
+    maxValueLength: number;
+  }
+
   // Simplified MobileDeviceManager interface
   interface MobileDeviceManager {
     // Main method - returns all essential information
@@ -88,15 +245,86 @@ declare module 'react-native-mdm' {
     // Force refresh of configuration
     refreshConfiguration(): Promise<DeviceManagementInfo>;
     
+    // Conditional variants, pass the last hash seen; the hash only covers the configuration (Android only)
+    getConfigurationIfChanged(hash?: string | null): Promise<ConditionalResult<OrganizationInfo>>;
+    refreshConfigurationIfChanged(hash?: string | null): Promise<ConditionalResult<DeviceManagementInfo>>;
+    
     // Get detailed diagnostics for debugging
-    getDetailedDiagnostics(): Promise<DetailedDiagnostics>;
+    getDetailedDiagnostics(options?: BackgroundTaskOptions): Promise<DetailedDiagnostics>;
+    
+    // Same ground as getDetailedDiagnostics plus every configuration value, written as JSON to a
+    // file in the app cache instead of crossing the bridge (Android only)
+    exportDiagnostics(options?: DiagnosticsExportOptions): Promise<DiagnosticsExportSummary>;
+    
+    // Requested sections computed together in one native call; all when omitted (Android only)
+    getAll(sections?: AllSection[], options?: BackgroundTaskOptions): Promise<AllResult>;
+    
+    // Synchronous reads of the cached configuration (Android only)
+    getConfigurationSync(): OrganizationInfo;
+    // undefined on iOS, and for keys that are not set
+    getConfigurationValueSync(key: string): any;
+    
+    // Subsets of the configuration; missing keys are omitted (Android only)
+    getConfigurationKeys(keys: string[]): Promise<OrganizationInfo>;
+    getConfigurationByPrefix(prefix: string): Promise<OrganizationInfo>;
+    
+    // Node at a dot path such as 'features.kiosk.timeout', looking inside JSON string values;
+    // null when missing (Android only)
+    getConfigValue(path: string): Promise<any>;
+    
+    // Restrictions snapshot cache counters (Android only)
+    getConfigurationCacheStats(): Promise<ConfigurationCacheStats>;
+    
+    // Restrictions change monitor counters (Android only)
+    getChangeMonitorStats(): Promise<ChangeMonitorStats>;
+    
+    // Window in milliseconds used to fold bursts of change broadcasts into one event (Android only)
+    setChangeCoalescingWindow(windowMs: number): Promise<number>;
+    
+    // Diagnostic methods run on a background executor; pending calls reject with
+    // E_TIMEOUT, E_CANCELLED or E_BUSY. Cancels only the call started with this callId and
+    // resolves false when it is no longer in flight (Android only)
+    cancelBackgroundTask(callId: string): Promise<boolean>;
+    
+    // Periodic and on-change WorkManager prefetch of the configuration while the app is in
+    // the background; resolves with the interval used, at least 15 minutes (Android only)
+    enableBackgroundPrefetch(intervalMinutes: number): Promise<number>;
+    disableBackgroundPrefetch(): Promise<boolean>;
+    
+    // Adds case-insensitive terms used to pick out MDM-related restriction keys in
+    // getDirectConfiguration and getDetailedDiagnostics; resolves with the active terms (Android only)
+    addKeySearchTerms(terms: string[]): Promise<string[]>;
+    
+    // Native log level, defaults to debug for debuggable builds and warn otherwise (Android only)
+    setLogLevel(level: LogLevel): Promise<LogLevel>;
+    
+    // Hot-path metrics since the last reset; pass true to read and reset (Android only)
+    getMetrics(reset?: boolean): Promise<ModuleMetrics>;
     
     // Event listener for configuration changes
     addConfigListener(callback: ConfigUpdateListener): EmitterSubscription;
     
+    // Delta event listener, only fires in 'delta' change event mode (Android only)
+    addConfigDeltaListener(callback: ConfigDeltaListener): EmitterSubscription;
+    setConfigChangeEventMode(mode: ConfigChangeEventMode): Promise<ConfigChangeEventMode>;
+    
+    // Changes to keys matching exact keys, 'Prefix*' or globs (* and ?), filtered natively and
+    // independent of the change event mode (Android only)
+    subscribeToConfigChanges(patterns: string[], callback: ConfigSubscriptionListener): ConfigSubscription;
+    
+    // App lock (lock task mode on Android, guided access on iOS)
+    isAppLockingAllowed(): Promise<boolean>;
+    isAppLocked(): Promise<boolean>;
+    // On Android these resolve once the change is requested; the system may still refuse it or
+    // wait for the user, so the outcome arrives through addAppLockListener
+    lockApp(): Promise<boolean>;
+    unlockApp(): Promise<boolean>;
+    
     // Legacy support (deprecated but kept for compatibility)
     isSupported(): Promise<boolean>;
     getConfiguration(): Promise<OrganizationInfo>;
+    addAppConfigListener(callback: ConfigUpdateListener): EmitterSubscription;
+    addAppLockListener(callback: AppLockListener): EmitterSubscription;
   }
 
   const MobileDeviceManager: MobileDeviceManager;
@@ -2,46 +2,241 @@
 
 import {
   DeviceEventEmitter,
-  NativeModules
+  NativeModules,
+  Platform
 } from 'react-native';
 
-const {MobileDeviceManager} = NativeModules;
+// Resolved on first use rather than at import, so importing this package does not
+// create the native module (and its change receiver) before the app needs it
+let nativeModule = null;
+let nativeConstants = null;
+
+function getNativeModule () {
+  if (nativeModule === null) {
+    // Prefer the TurboModule on the New Architecture, fall back to the bridge module
+    nativeModule = require('./src/NativeMobileDeviceManager').default || NativeModules.MobileDeviceManager;
+  }
+  return nativeModule;
+}
+
+function getConstants () {
+  if (nativeConstants === null) {
+    const MobileDeviceManager = getNativeModule();
+    // TurboModules only expose constants through getConstants()
+    nativeConstants = typeof MobileDeviceManager.getConstants === 'function'
+      ? MobileDeviceManager.getConstants()
+      : MobileDeviceManager;
+  }
+  return nativeConstants;
+}
+
+// Config subscriptions share one native event; a single emitter listener routes it by ID
+const configSubscriptions = new Map();
+let configSubscriptionListener = null;
+let nextConfigSubscriptionId = 0;
+
+function dispatchConfigSubscription (event) {
+  const callback = configSubscriptions.get(event.subscriptionId);
+  if (callback) {
+    callback(event);
+  }
+}
+
+// Drops the callback, and the shared emitter listener with the last one; false if already gone
+function releaseConfigSubscription (subscriptionId) {
+  if (!configSubscriptions.delete(subscriptionId)) {
+    return false;
+  }
+  if (configSubscriptions.size === 0 && configSubscriptionListener) {
+    configSubscriptionListener.remove();
+    configSubscriptionListener = null;
+  }
+  return true;
+}
 
 export default {
   // Main simplified methods
-  getDeviceInfo: MobileDeviceManager.getDeviceInfo,
-  getOrganizationInfo: MobileDeviceManager.getOrganizationInfo,
-  refreshConfiguration: MobileDeviceManager.refreshConfiguration,
-  getDetailedDiagnostics: MobileDeviceManager.getDetailedDiagnostics,
+  get getDeviceInfo () {
+    return getNativeModule().getDeviceInfo;
+  },
+  get getOrganizationInfo () {
+    return getNativeModule().getOrganizationInfo;
+  },
+  get refreshConfiguration () {
+    return getNativeModule().refreshConfiguration;
+  },
+  // Runs on a background executor on Android, where options can carry a per-call timeoutMs
+  // and a callId for cancelBackgroundTask
+  getDetailedDiagnostics (options = {}) {
+    return Platform.OS === 'android'
+      ? getNativeModule().getDetailedDiagnostics(options)
+      : getNativeModule().getDetailedDiagnostics();
+  },
+  
+  // Diagnostics streamed to a file in the app cache; resolves with its path and a summary (Android only)
+  exportDiagnostics (options = {}) {
+    return getNativeModule().exportDiagnostics(options);
+  },
+  
+  // Resolve {notModified: true, hash} while the configuration still matches the given hash (Android only)
+  getConfigurationIfChanged (hash = null) {
+    return getNativeModule().getConfigurationIfChanged(hash);
+  },
+  refreshConfigurationIfChanged (hash = null) {
+    return getNativeModule().refreshConfigurationIfChanged(hash);
+  },
+  
+  // Several sections in one native call; all sections when none are given (Android only)
+  getAll (sections = [], options = {}) {
+    return getNativeModule().getAll(sections, options);
+  },
+  
+  // Synchronous reads of the cached configuration (Android only)
+  get getConfigurationSync () {
+    return getNativeModule().getConfigurationSync;
+  },
+  // undefined on iOS, which has no synchronous method to call
+  getConfigurationValueSync (key) {
+    if (Platform.OS !== 'android') {
+      return undefined;
+    }
+    return getNativeModule().getConfigurationValueSync(key)[key];
+  },
+  
+  // Only the requested keys cross the bridge (Android only)
+  get getConfigurationKeys () {
+    return getNativeModule().getConfigurationKeys;
+  },
+  get getConfigurationByPrefix () {
+    return getNativeModule().getConfigurationByPrefix;
+  },
+  
+  // A single node by dot path, JSON values are parsed natively (Android only)
+  get getConfigValue () {
+    return getNativeModule().getConfigValue;
+  },
+  
+  get getConfigurationCacheStats () {
+  
+    return getNativeModule().getConfigurationCacheStats;
+  
+  },
+  get getChangeMonitorStats () {
+    return getNativeModule().getChangeMonitorStats;
+  },
+  get setConfigChangeEventMode () {
+    return getNativeModule().setConfigChangeEventMode;
+  },
+  get setChangeCoalescingWindow () {
+    return getNativeModule().setChangeCoalescingWindow;
+  },
+  
+  // Rejects the background call started with this callId with E_CANCELLED (Android only)
+  get cancelBackgroundTask () {
+    return getNativeModule().cancelBackgroundTask;
+  },
+  
+  // Background prefetch of the configuration through WorkManager (Android only)
+  get enableBackgroundPrefetch () {
+    return getNativeModule().enableBackgroundPrefetch;
+  },
+  get disableBackgroundPrefetch () {
+    return getNativeModule().disableBackgroundPrefetch;
+  },
+  
+  // Extra terms for spotting MDM-related restriction keys (Android only)
+  get addKeySearchTerms () {
+    return getNativeModule().addKeySearchTerms;
+  },
+  
+  // Native log level: verbose, debug, info, warn, error or none (Android only)
+  get setLogLevel () {
+    return getNativeModule().setLogLevel;
+  },
+  
+  // Call counts, latency histograms and binder call counters (Android only)
+  getMetrics (reset = false) {
+    return getNativeModule().getMetrics(reset);
+  },
   
   // Simplified event listener
   addConfigListener (callback) {
     return DeviceEventEmitter.addListener(
-      MobileDeviceManager.APP_CONFIG_CHANGED,
+      getConstants().APP_CONFIG_CHANGED,
+      callback
+    );
+  },
+  
+  // Delta event listener, only fires in 'delta' change event mode (Android only)
+  addConfigDeltaListener (callback) {
+    return DeviceEventEmitter.addListener(
+      getConstants().APP_CONFIG_DELTA,
       callback
     );
   },
   
+  // Only changes to keys matching the patterns (exact keys, 'Prefix*' or globs with * and ?)
+  // reach the callback, filtered natively (Android only)
+  subscribeToConfigChanges (patterns, callback) {
+    const subscriptionId = `config-${++nextConfigSubscriptionId}`;
+    configSubscriptions.set(subscriptionId, callback);
+    if (!configSubscriptionListener) {
+      configSubscriptionListener = DeviceEventEmitter.addListener(
+        getConstants().APP_CONFIG_SUBSCRIPTION,
+        dispatchConfigSubscription
+      );
+    }
+    // A rejected registration leaves nothing behind, the rejection still reaches ready
+    const ready = getNativeModule().subscribeToConfigChanges(subscriptionId, patterns)
+      .catch(error => {
+        releaseConfigSubscription(subscriptionId);
+        throw error;
+      });
+
+    return {
+      subscriptionId,
+      ready,
+      remove () {
+        if (!releaseConfigSubscription(subscriptionId)) {
+          return Promise.resolve(false);
+        }
+        return getNativeModule().unsubscribeFromConfigChanges(subscriptionId);
+      }
+    };
+  },
+  
   // Legacy methods (deprecated but kept for compatibility)
-  isSupported: MobileDeviceManager.isSupported,
-  getConfiguration: MobileDeviceManager.getConfiguration,
+  get isSupported () {
+    return getNativeModule().isSupported;
+  },
+  get getConfiguration () {
+    return getNativeModule().getConfiguration;
+  },
   
   // Keep app lock methods if needed
-  isAppLockingAllowed: MobileDeviceManager.isAppLockingAllowed,
-  isAppLocked: MobileDeviceManager.isAppLocked,
-  lockApp: MobileDeviceManager.lockApp,
-  unlockApp: MobileDeviceManager.unlockApp,
+  get isAppLockingAllowed () {
+    return getNativeModule().isAppLockingAllowed;
+  },
+  get isAppLocked () {
+    return getNativeModule().isAppLocked;
+  },
+  get lockApp () {
+    return getNativeModule().lockApp;
+  },
+  get unlockApp () {
+    return getNativeModule().unlockApp;
+  },
   
   // Legacy event listeners (deprecated)
   addAppConfigListener (callback) {
     return DeviceEventEmitter.addListener(
-      MobileDeviceManager.APP_CONFIG_CHANGED,
+      getConstants().APP_CONFIG_CHANGED,
       callback
     );
   },
   addAppLockListener (callback) {
     return DeviceEventEmitter.addListener(
-      MobileDeviceManager.APP_LOCK_STATUS_CHANGED,
+      getConstants().APP_LOCK_STATUS_CHANGED,
       callback
     );
   }
@@ -0,0 +1,63 @@
+// @flow strict-local
+
+import type {TurboModule} from 'react-native';
+import {TurboModuleRegistry} from 'react-native';
+
+// New Architecture spec for the MobileDeviceManager native module.
+// The *Sync methods are served from the native restrictions snapshot cache and
+// return without an async bridge round-trip.
+export interface Spec extends TurboModule {
+  +getConstants: () => {|
+    APP_CONFIG_CHANGED: string,
+    APP_LOCK_STATUS_CHANGED: string,
+    APP_CONFIG_DELTA: string,
+    APP_CONFIG_SUBSCRIPTION: string,
+  |};
+
+  // Synchronous reads (Android)
+  +getConfigurationSync: () => Object;
+  +getConfigurationValueSync: (key: string) => Object;
+
+  // Main simplified methods
+  +getDeviceInfo: () => Promise<Object>;
+  +getOrganizationInfo: () => Promise<Object>;
+  +refreshConfiguration: () => Promise<Object>;
+  +getConfigurationIfChanged: (hash: ?string) => Promise<Object>;
+  +refreshConfigurationIfChanged: (hash: ?string) => Promise<Object>;
+  +getDetailedDiagnostics: (options: ?Object) => Promise<Object>;
+  +exportDiagnostics: (options: ?Object) => Promise<Object>;
+  +getAll: (sections: Array<string>, options: ?Object) => Promise<Object>;
+
+  // Change pipeline (Android)
+  +getConfigurationCacheStats: () => Promise<Object>;
+  +getChangeMonitorStats: () => Promise<Object>;
+  +setConfigChangeEventMode: (mode: string) => Promise<string>;
+  +subscribeToConfigChanges: (subscriptionId: string, patterns: Array<string>) => Promise<string>;
+  +unsubscribeFromConfigChanges: (subscriptionId: string) => Promise<boolean>;
+  +setChangeCoalescingWindow: (windowMs: number) => Promise<number>;
+  +cancelBackgroundTask: (callId: string) => Promise<boolean>;
+  +enableBackgroundPrefetch: (intervalMinutes: number) => Promise<number>;
+  +disableBackgroundPrefetch: () => Promise<boolean>;
+  +addKeySearchTerms: (terms: Array<string>) => Promise<Array<string>>;
+  +setLogLevel: (level: string) => Promise<string>;
+  +getMetrics: (reset: boolean) => Promise<Object>;
+
+  // Legacy methods
+  +isSupported: () => Promise<boolean>;
+  +getConfiguration: () => Promise<Object>;
+  +getConfigurationKeys: (keys: Array<string>) => Promise<Object>;
+  +getConfigurationByPrefix: (prefix: string) => Promise<Object>;
+  +getConfigValue: (path: string) => Promise<mixed>;
+  +getDirectConfiguration: () => Promise<Object>;
+  +checkMDMCapabilities: () => Promise<Object>;
+  +getEnrollmentStatus: () => Promise<Object>;
+  +forceMDMSync: () => Promise<Object>;
+
+  // App lock
+  +isAppLockingAllowed: () => Promise<boolean>;
+  +isAppLocked: () => Promise<boolean>;
+  +lockApp: () => Promise<boolean>;
+  +unlockApp: () => Promise<boolean>;
+}
+
+export default (TurboModuleRegistry.get<Spec>('MobileDeviceManager'): ?Spec);